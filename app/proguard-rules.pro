@@ -20,4 +20,31 @@
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
 -keep class org.bouncycastle.** { *; }
--dontwarn org.bouncycastle.**
\ No newline at end of file
+-dontwarn org.bouncycastle.**
+# release 中移除调试日志：调用及只为拼接日志而计算的参数一并删除
+-assumenosideeffects class com.hux.testwallet.WalletLog {
+    public static void d(...);
+    public static void i(...);
+}
+-assumevalues class com.hux.testwallet.WalletLog {
+    public static boolean isDebugEnabled() return false;
+}
+-assumenosideeffects class android.util.Log {
+    public static int v(...);
+    public static int d(...);
+    public static int i(...);
+}
+
+# KeyStore 等通过 Jackson 反射序列化
+-keep class org.web3j.** { *; }
+-dontwarn org.web3j.**
+-keep class com.fasterxml.jackson.** { *; }
+-dontwarn com.fasterxml.jackson.**
+-keepattributes Signature,*Annotation*,InnerClasses,EnclosingMethod
+# bitcoinj 从资源加载 BIP39 词表
+-keep class org.bitcoinj.** { *; }
+-dontwarn org.bitcoinj.**
+-dontwarn okhttp3.**
+-dontwarn okio.**
+-dontwarn org.slf4j.**
+-dontwarn javax.annotation.**
@@ -0,0 +1,27 @@
+package com.hux.testwallet;
+
+import android.util.Log;
+
+/**
+ * 将钱包核心日志输出到 Logcat
+ */
+public class AndroidWalletLogger implements WalletLogger {
+
+    @Override
+    public void log(int level, String tag, String message, Throwable throwable) {
+        switch (level) {
+            case ERROR:
+                Log.e(tag, message, throwable);
+                break;
+            case WARN:
+                Log.w(tag, message, throwable);
+                break;
+            case INFO:
+                Log.i(tag, message, throwable);
+                break;
+            default:
+                Log.d(tag, message, throwable);
+                break;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hux.testwallet;
+
+import android.content.Context;
+
+import java.io.File;
+
+/**
+ * 钱包核心存储位置对应 Context.getDir 的私有目录
+ */
+public class AndroidWalletStorage implements WalletStorage {
+
+    private final Context context;
+
+    public AndroidWalletStorage(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public File getDir(String name) {
+        return context.getDir(name, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 同一应用的所有实例指向同一组目录
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AndroidWalletStorage)) return false;
+        return context.equals(((AndroidWalletStorage) o).context);
+    }
+
+    @Override
+    public int hashCode() {
+        return context.hashCode();
+    }
+}
@@ -2,6 +2,8 @@ package com.hux.testwallet;
 
 import android.app.Application;
 
+import com.liar.testwallet.BuildConfig;
+
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.security.Provider;
@@ -11,6 +13,9 @@ public class App extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        // 钱包核心的日志输出到 Logcat，release 只输出警告和错误
+        WalletLog.setLogger(new AndroidWalletLogger());
+        WalletLog.setMinLevel(BuildConfig.DEBUG ? WalletLogger.DEBUG : WalletLogger.WARN);
         setupBouncyCastle();
     }
 
@@ -1,9 +1,7 @@
 package com.hux.testwallet;
 
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -18,21 +16,18 @@ import com.liar.testwallet.R;
 
 import org.web3j.crypto.CipherException;
 import org.web3j.crypto.Credentials;
-import org.web3j.crypto.ECKeyPair;
-import org.web3j.crypto.RawTransaction;
-import org.web3j.crypto.TransactionEncoder;
-import org.web3j.crypto.Wallet;
 import org.web3j.crypto.WalletFile;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
-import org.web3j.protocol.http.HttpService;
 import org.web3j.utils.Convert;
-import org.web3j.utils.Numeric;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 以太坊钱包主页
@@ -40,8 +35,8 @@ import java.math.RoundingMode;
 public class EthWalletActivity extends AppCompatActivity {
 
     private static final String TAG = "EthWalletActivity";
-    //以太坊钱包文件
-    private WalletFile mWalletFile;
+    //以太坊钱包文件，在加载线程写入
+    private volatile WalletFile mWalletFile;
     //当前网络名称
     private TextView mNetworkTitleText;
     //当前钱包地址
@@ -59,8 +54,8 @@ public class EthWalletActivity extends AppCompatActivity {
     //钱包私钥
     private EditText mPrivateKeyEdit;
 
-    //创建Web3j实例
-    private Web3j mWeb3j = Web3j.build(new HttpService(Constants.ETHEREUM_SEPOLIA_URL));
+    //当前网络请求地址
+    private String mEthUrl = Constants.ETHEREUM_SEPOLIA_URL;
     //当前钱包地址
     private String mAddress;
 
@@ -72,6 +67,27 @@ public class EthWalletActivity extends AppCompatActivity {
         initEthWalletData();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        //页面可见期间轮询手续费，发送时不再等待手续费请求
+        TransactionPipeline.getInstance(mEthUrl).getFeeOracle().start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        TransactionPipeline.getInstance(mEthUrl).getFeeOracle().stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        WalletExecutors.getInstance().cancelAll(this);
+        //离开钱包页面即锁定，清零已解密的私钥
+        EthWalletController.getInstance().lock();
+    }
+
     /**
      * 加载UI控件
      */
@@ -90,22 +106,22 @@ public class EthWalletActivity extends AppCompatActivity {
      * 加载钱包数据
      */
     private void initEthWalletData(){
-        EthWalletController.getInstance().loadWallet(this, new EthWalletController.OnWalletLoadedListener() {
+        EthWalletController.getInstance().loadWallet(new AndroidWalletStorage(this), new EthWalletController.OnWalletLoadedListener() {
             @Override
             public void onWalletLoaded(WalletFile w) {
                 mWalletFile = w;
-                Log.d(TAG, "onWalletLoaded::::: " + mWalletFile.getAddress().length());
+                WalletLog.d(TAG, "onWalletLoaded::::: {}", mWalletFile.getAddress().length());
                 mAddress = Constants.HEX_PREFIX + mWalletFile.getAddress();
-                Log.d(TAG, "mAddress当前钱包地址 ::::: " +mAddress);
+                WalletLog.d(TAG, "mAddress当前钱包地址 ::::: {}", mAddress);
                 runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
 
                         mWalletAddressText.setText(mAddress);
-                        updateBalance(mAddress, mWalletBalanceText);
-
                         mToAddressEdit.setText(Constants.LIA_ADDRESS);
-                        updateBalance(mToAddressEdit.getText().toString(),mToAddressBalanceText);
+                        //两个地址一次批量查询
+                        updateBalances(Arrays.asList(mAddress, mToAddressEdit.getText().toString()),
+                                Arrays.asList(mWalletBalanceText, mToAddressBalanceText));
                     }
                 });
             }
@@ -142,20 +158,29 @@ public class EthWalletActivity extends AppCompatActivity {
      */
     private void refurbishUI(String title,String ethUrl){
         mNetworkTitleText.setText(title);
-        mWeb3j = Web3j.build(new HttpService(ethUrl));
+        //只轮询当前网络的手续费
+        TransactionPipeline.getInstance(mEthUrl).getFeeOracle().stop();
+        mEthUrl = ethUrl;
+        TransactionPipeline.getInstance(mEthUrl).getFeeOracle().start();
 
+        List<String> owners = new ArrayList<>();
+        List<TextView> views = new ArrayList<>();
         if (TextUtils.isEmpty(mToAddressEdit.getText())) {
             mToAddressEdit.setText("");
             mToAddressBalanceText.setText("");
         }else {
-            updateBalance(mToAddressEdit.getText().toString(),mToAddressBalanceText);
+            owners.add(mToAddressEdit.getText().toString());
+            views.add(mToAddressBalanceText);
         }
         if (TextUtils.isEmpty(mAddress) || TextUtils.isEmpty(mWalletAddressText.getText())) {
             mWalletAddressText.setText("");
             mWalletBalanceText.setText("");
-            return;
         }else {
-            updateBalance(mAddress, mWalletBalanceText);
+            owners.add(mAddress);
+            views.add(mWalletBalanceText);
+        }
+        if (!owners.isEmpty()) {
+            updateBalances(owners, views);
         }
     }
 
@@ -165,29 +190,39 @@ public class EthWalletActivity extends AppCompatActivity {
      *  @param view  查询的钱包余额TextView
      */
     private void updateBalance(String owner,TextView view) {
+        updateBalances(Collections.singletonList(owner), Collections.singletonList(view));
+    }
 
-        AsyncTask.execute(new Runnable() {
+    /**
+     * 批量更新钱包余额，所有地址一次 JSON-RPC 批量请求
+     *  @param owners 查询的钱包地址
+     *  @param views  与地址一一对应的余额TextView
+     */
+    private void updateBalances(final List<String> owners, final List<TextView> views) {
+        WalletLog.d(TAG, "updateBalance-当前查询地址：：：{}", owners);
+        //先显示缓存余额，区块高度前进后再刷新
+        BalanceCache.getInstance(mEthUrl).refresh(owners, new BalanceCache.Listener() {
             @Override
-            public void run() {
-                try {
-                    Log.d(TAG, "updateBalance-当前查询地址：：：" + owner);
-                    final BigInteger balance = mWeb3j.ethGetBalance(owner, DefaultBlockParameterName.LATEST).send().getBalance();
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
+            public void onBalances(final Map<String, BigInteger> balances, long blockNumber, boolean fresh) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < owners.size(); i++) {
+                            BigInteger balance = balances.get(owners.get(i));
+                            if (balance == null) {
+                                continue;
+                            }
                             BigDecimal bigDecimal = Convert.fromWei(balance.toString(), Convert.Unit.ETHER);
                             String balanceString = bigDecimal.setScale(8, RoundingMode.FLOOR).toPlainString() + " eth";
-                            Log.d(TAG, "updateBalance-当前查询地址的余额：：：" + balanceString);
-                            view.setText(balanceString);
+                            views.get(i).setText(balanceString);
                         }
-                    });
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Log.d(TAG, "updateBalance-查询该地址的余额失败,IOException::::"+e.getMessage().toString());
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Log.d(TAG, "updateBalance-查询该地址的余额失败,Exception::::"+e.getMessage().toString());
-                }
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                WalletLog.w(TAG, "updateBalance-查询该地址的余额失败", e);
             }
         });
     }
@@ -251,40 +286,40 @@ public class EthWalletActivity extends AppCompatActivity {
      * 发送ETH
      */
     public void onSendEth(View view) {
-        AsyncTask.execute(new Runnable() {
+        if (mAddress == null || TextUtils.isEmpty(mToAddressEdit.getText().toString())
+                || TextUtils.isEmpty(mAmountEdit.getText().toString())) return;
+        final String to = mToAddressEdit.getText().toString().trim();
+        final String amount = mAmountEdit.getText().toString().trim();
+        final TransactionPipeline pipeline = TransactionPipeline.getInstance(mEthUrl);
+        //解密 KeyStore 是 CPU 密集操作，放在 CPU 线程池
+        WalletExecutors.getInstance().runCpu(this, new Runnable() {
             @Override
             public void run() {
-                if (mAddress == null || TextUtils.isEmpty(mToAddressEdit.getText().toString())
-                        || TextUtils.isEmpty(mAmountEdit.getText().toString())) return;
                 try {
-                    BigInteger transactionCount = mWeb3j.ethGetTransactionCount(mAddress, DefaultBlockParameterName.LATEST).send().getTransactionCount();
-                    BigInteger gasPrice = mWeb3j.ethGasPrice().send().getGasPrice();
-                    Log.d(TAG, "run: onSendEth:::: " + transactionCount + ", " + gasPrice);
-                    BigInteger gasLimit = new BigInteger("200000");
-                    BigDecimal value = Convert.toWei(mAmountEdit.getText().toString().trim(), Convert.Unit.ETHER);
-                    Log.d(TAG, "run: onSendEth:::: value wei" + value.toPlainString());
-                    String to = mToAddressEdit.getText().toString().trim();
-                    RawTransaction etherTransaction = RawTransaction.createEtherTransaction(transactionCount, gasPrice, gasLimit, to, value.toBigInteger());
-                    //获取私钥，进行签名
-                    ECKeyPair ecKeyPair = Wallet.decrypt(Constants.PASSWORD, mWalletFile);
-                    Credentials credentials = Credentials.create(ecKeyPair);
-
-                    byte[] bytes = TransactionEncoder.signMessage(etherTransaction, credentials);
-                    String hexValue = Numeric.toHexString(bytes);
-                    final String transactionHash = mWeb3j.ethSendRawTransaction(hexValue).send().getTransactionHash();
-                    Log.d(TAG, "run: onSendEth:::: transactionHash :::" + transactionHash);
-                    runOnUiThread(new Runnable() {
+                    BigDecimal value = Convert.toWei(amount, Convert.Unit.ETHER);
+                    WalletLog.d(TAG, "run: onSendEth:::: value wei {}", value);
+                    //获取私钥，进行签名（解锁会话内不重复解密）
+                    Credentials credentials = EthWalletController.getInstance().unlock(mWalletFile);
+                    //手续费取自后台轮询的 FeeOracle，gasLimit 按调用形态估算，连续发送时在本地递增 nonce
+                    pipeline.sendEther(credentials, to, value.toBigInteger(), null, new TransactionPipeline.SendListener() {
+                        @Override
+                        public void onSent(String transactionHash) {
+                            WalletLog.d(TAG, "run: onSendEth:::: transactionHash :::{}", transactionHash);
+                            runOnUiThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Toast.makeText(EthWalletActivity.this, "Send success!", Toast.LENGTH_SHORT).show();
+                                }
+                            });
+                        }
+
                         @Override
-                        public void run() {
-                            Toast.makeText(EthWalletActivity.this, "Send success!", Toast.LENGTH_SHORT).show();
+                        public void onFailure(Exception e) {
+                            WalletLog.e(TAG, "run: onSendEth.Exception", e);
                         }
                     });
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Log.d(TAG, "run: onSendEth.IOException：：： " + e.getMessage());
                 } catch (CipherException e) {
-                    e.printStackTrace();
-                    Log.d(TAG, "run: onSendEth.CipherException：：： " + e.getMessage());
+                    WalletLog.e(TAG, "run: onSendEth.CipherException", e);
                 }
             }
         });
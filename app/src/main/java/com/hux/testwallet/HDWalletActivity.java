@@ -4,7 +4,6 @@ import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Base64;
@@ -18,17 +17,14 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.liar.testwallet.R;
 
 import org.web3j.crypto.CipherException;
 import org.web3j.crypto.Credentials;
 import org.web3j.crypto.ECKeyPair;
 import org.web3j.crypto.WalletFile;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
-import org.web3j.protocol.http.HttpService;
 import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,9 +35,16 @@ import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import okhttp3.OkHttpClient;
 
 /**
  * HD 钱包管理界面
@@ -49,9 +52,27 @@ import java.util.Locale;
 public class HDWalletActivity extends AppCompatActivity {
     private static final String TAG = "HDWalletActivity";
 
+    // 派生账户列表每页加载的数量
+    private static final int ACCOUNT_PAGE_SIZE = 100;
+    // 页面上显示的最近转账条数
+    private static final int HISTORY_PAGE_SIZE = 10;
+
     private Bip39WalletManager bip39Manager;
+    // 助记词只在派生新地址、导出时才从存储中读出
     private List<String> currentMnemonics;
-    private List<WalletFile> derivedWallets = new ArrayList<>();
+    private volatile boolean hdWallet;
+    // 已加载的派生地址（不带0x前缀），下标即账户索引，只保存地址，不生成 KeyStore
+    private List<String> derivedAddresses = new ArrayList<>();
+    // 派生账户存储及其中的账户总数
+    private AccountStore accountStore;
+    private volatile int totalAccounts;
+    // 与账户存储按位置对应的余额快照
+    private BalanceSnapshotStore balanceSnapshots;
+    // 转账历史，打开页面时直接从本地读取
+    private HistoryStore historyStore;
+    private TransferHistoryIndexer historyIndexer;
+    // 新区块推送，只刷新涉及本钱包地址的余额
+    private BlockSubscriber blockSubscriber;
     private int currentAccountIndex = 0;
 
     // UI 组件
@@ -66,6 +87,7 @@ public class HDWalletActivity extends AppCompatActivity {
     private Button btnConfirmRecover;
     private TextView currentAddressText;
     private TextView currentBalanceText;
+    private TextView historyText;
     private Button btnRefreshBalance;
     private Button btnDeriveAddress;
     private TextView derivedAddressesLabel;
@@ -75,7 +97,16 @@ public class HDWalletActivity extends AppCompatActivity {
     private TextView keystoreText;
     private TextView privateKeyText;
 
-    private Web3j web3j;
+    private TokenBalanceScanner tokenScanner;
+    private JsonRpcBatchClient rpcClient;
+    // 代币余额对应的区块高度，区块未前进时不重复查询
+    private volatile long tokenBalancesBlock = -1;
+    // 最近一次批量查询到的余额，只在UI线程访问
+    private Map<String, BigInteger> addressBalances = new HashMap<>();
+    // 最近一次查询到的 LIA 代币余额（最小单位），只在UI线程访问
+    private Map<String, BigInteger> tokenBalances = new HashMap<>();
+    private String currentAddress;
+    // 当前账户的 KeyStore，导出时才按需生成
     private WalletFile currentWallet;
 
     @Override
@@ -85,9 +116,71 @@ public class HDWalletActivity extends AppCompatActivity {
 
         initViews();
         initData();
-        new android.os.Handler().postDelayed(() -> {
-            checkExistingWallet();
-        }, 500);    }
+        checkExistingWallet();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        blockSubscriber.start(new BlockSubscriber.Listener() {
+            @Override
+            public void onNewBlock(long blockNumber) {
+                // 区块前进但没有涉及本钱包的交易时不刷新
+            }
+
+            @Override
+            public void onActivity(long blockNumber, Set<String> addresses) {
+                runOnUiThread(() -> refreshAffectedBalances(addresses));
+            }
+        });
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        blockSubscriber.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        blockSubscriber.shutdown();
+        // 取消本页面未完成的后台任务；不中断执行中的任务，中断会关闭正在读写的 FileChannel
+        CompletableFuture<Void> cancelled = WalletExecutors.getInstance().cancelAll(this, false);
+        WalletExecutors.getInstance().logStats();
+        // 离开钱包页面即锁定，清除缓存的种子、派生节点和已解密的私钥
+        bip39Manager.lock();
+        EthWalletController.getInstance().lock();
+        // 执行中的任务结束后再关闭存储，避免关闭后仍有任务写入
+        AccountStore accounts = accountStore;
+        BalanceSnapshotStore snapshots = balanceSnapshots;
+        HistoryStore history = historyStore;
+        cancelled.whenComplete((ignored, error) -> closeStores(accounts, snapshots, history));
+    }
+
+    private static void closeStores(AccountStore accounts, BalanceSnapshotStore snapshots, HistoryStore history) {
+        if (accounts != null) {
+            try {
+                accounts.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Close account store failed", e);
+            }
+        }
+        if (snapshots != null) {
+            try {
+                snapshots.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Close balance snapshots failed", e);
+            }
+        }
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Close history store failed", e);
+            }
+        }
+    }
 
     private void initViews() {
         networkTitleText = findViewById(R.id.network_title);
@@ -101,6 +194,7 @@ public class HDWalletActivity extends AppCompatActivity {
         btnConfirmRecover = findViewById(R.id.btn_confirm_recover);
         currentAddressText = findViewById(R.id.current_address);
         currentBalanceText = findViewById(R.id.current_balance);
+        historyText = findViewById(R.id.history_text);
         btnRefreshBalance = findViewById(R.id.btn_refresh_balance);
         btnDeriveAddress = findViewById(R.id.btn_derive_address);
         derivedAddressesLabel = findViewById(R.id.derived_addresses_label);
@@ -115,7 +209,27 @@ public class HDWalletActivity extends AppCompatActivity {
 
     private void initData() {
         bip39Manager = Bip39WalletManager.getInstance();
-        web3j = Web3j.build(new HttpService(Constants.ETHEREUM_SEPOLIA_URL));
+        try {
+            accountStore = new AccountStore(new File(getFilesDir(), "accounts.bin"));
+            totalAccounts = accountStore.size();
+        } catch (IOException e) {
+            Log.e(TAG, "Open account store failed", e);
+        }
+        try {
+            balanceSnapshots = new BalanceSnapshotStore(new File(getFilesDir(), "balances.bin"));
+        } catch (IOException e) {
+            Log.e(TAG, "Open balance snapshots failed", e);
+        }
+        OkHttpClient httpClient = RpcHttpClient.getInstance().getHttpClient();
+        rpcClient = new JsonRpcBatchClient(httpClient, Constants.ETHEREUM_SEPOLIA_URL);
+        tokenScanner = new TokenBalanceScanner(rpcClient, Constants.MULTICALL3_ADDRESS);
+        try {
+            historyStore = new HistoryStore(new File(getFilesDir(), "history"));
+            historyIndexer = new TransferHistoryIndexer(rpcClient, historyStore, null);
+        } catch (IOException e) {
+            Log.e(TAG, "Open history store failed", e);
+        }
+        blockSubscriber = new BlockSubscriber(httpClient, Constants.ETHEREUM_SEPOLIA_WS_URL, rpcClient);
     }
 
     private void setupClickListeners() {
@@ -134,27 +248,30 @@ public class HDWalletActivity extends AppCompatActivity {
     }
 
     private void generateNewWallet() {
-        AsyncTask.execute(() -> {
+        WalletExecutors.getInstance().runCpu(this, () -> {
             try {
                 // 生成助记词
                 currentMnemonics = bip39Manager.generateMnemonic();
 
                 if (currentMnemonics != null && !currentMnemonics.isEmpty()) {
+                    hdWallet = true;
                     // 从助记词创建主钱包
                     WalletFile walletFile = bip39Manager.createWalletFromMnemonic(
                             currentMnemonics, Constants.PASSWORD);
 
                     if (walletFile != null) {
                         currentWallet = walletFile;
-                        derivedWallets.clear();
-                        derivedWallets.add(walletFile);
-                        currentAccountIndex = 0;
+                        currentAddress = walletFile.getAddress();
+                        String address = currentAddress;
 
                         // 保存钱包文件
                         saveWalletFile(walletFile);
-                        saveDerivedWallets();
+                        resetDerivedWallets(currentAddress);
 
                         runOnUiThread(() -> {
+                            derivedAddresses.clear();
+                            derivedAddresses.add(address);
+                            currentAccountIndex = 0;
                             showMnemonicBackupDialog(currentMnemonics);
                             updateWalletUI();
                             hideRecoverLayout();
@@ -186,22 +303,29 @@ public class HDWalletActivity extends AppCompatActivity {
             return;
         }
 
-        AsyncTask.execute(() -> {
+        WalletExecutors.getInstance().runCpu(this, () -> {
             WalletFile walletFile = bip39Manager.recoverWallet(mnemonicPhrase, Constants.PASSWORD);
             if (walletFile != null) {
+                currentMnemonics = Arrays.asList(mnemonicPhrase.split("\\s+"));
+                hdWallet = true;
                 currentWallet = walletFile;
-                derivedWallets.clear();
-                derivedWallets.add(walletFile);
-                currentAccountIndex = 0;
+                currentAddress = walletFile.getAddress();
+                String address = currentAddress;
 
                 saveWalletFile(walletFile);
-                saveDerivedWallets();
+                resetDerivedWallets(currentAddress);
 
                 runOnUiThread(() -> {
+                    derivedAddresses.clear();
+                    derivedAddresses.add(address);
+                    currentAccountIndex = 0;
                     updateWalletUI();
                     hideRecoverLayout();
                     Toast.makeText(this, "钱包恢复成功", Toast.LENGTH_SHORT).show();
                 });
+                // 恢复后查找其他使用过的账户，不用再手动逐个派生
+                WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, this,
+                        "hd-discover", this::discoverAccounts);
             } else {
                 runOnUiThread(() ->
                         Toast.makeText(this, "助记词无效", Toast.LENGTH_SHORT).show());
@@ -209,27 +333,72 @@ public class HDWalletActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * 按 BIP44 间隔上限发现使用过的账户并追加到账户存储，需在后台线程调用
+     */
+    private void discoverAccounts() {
+        try {
+            HDDerivationContext context = bip39Manager.getDerivationContext(requireMnemonics());
+            AccountDiscovery.Result result = new AccountDiscovery(rpcClient).discover(context);
+            List<String> discovered = result.addresses;
+            // 同一助记词同一索引的地址相同，已被手动派生占用的位置直接跳过
+            for (int i = totalAccounts; i < discovered.size(); i++) {
+                appendDerivedWallet(i, discovered.get(i));
+            }
+            Map<String, BigInteger> balances = new HashMap<>();
+            for (int i = 0; i < discovered.size(); i++) {
+                balances.put(discovered.get(i), result.balances.get(i));
+            }
+            runOnUiThread(() -> {
+                int loaded = Math.min(discovered.size(), ACCOUNT_PAGE_SIZE);
+                for (int i = derivedAddresses.size(); i < loaded; i++) {
+                    derivedAddresses.add(discovered.get(i));
+                }
+                addressBalances.putAll(balances);
+                tokenBalancesBlock = -1;
+                updateDerivedAddressesUI();
+                watchAddresses();
+                if (discovered.size() > 1) {
+                    Toast.makeText(this, "已发现 " + discovered.size() + " 个使用过的地址",
+                            Toast.LENGTH_SHORT).show();
+                }
+            });
+        } catch (IOException e) {
+            Log.e(TAG, "Discover accounts failed", e);
+        }
+    }
+
     private void deriveNewAddress() {
-        if (currentMnemonics == null || currentMnemonics.isEmpty()) {
+        if (!hdWallet) {
             Toast.makeText(this, "请先创建或恢复钱包", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        AsyncTask.execute(() -> {
+        WalletExecutors.getInstance().runCpu(this, () -> {
             try {
-                currentAccountIndex++;
-                WalletFile newWallet = bip39Manager.deriveNewAddress(
-                        currentMnemonics, Constants.PASSWORD, currentAccountIndex);
-
-                if (newWallet != null) {
-                    derivedWallets.add(newWallet);
-                    // 保存新的派生钱包列表
-                    saveDerivedWallets();
-                    saveCurrentAccountIndex();
+                int newIndex;
+                String newAddress;
+                // CPU 线程池并行执行，索引由账户存储在锁内确认；位置已被占用时按新的账户数重新派生
+                do {
+                    newIndex = totalAccounts;
+                    // 只派生地址，KeyStore 在导出时才生成
+                    newAddress = bip39Manager.deriveAddress(requireMnemonics(), newIndex);
+                } while (newAddress != null && !appendDerivedWallet(newIndex, newAddress));
+
+                if (newAddress != null) {
+                    int index = newIndex;
+                    String address = newAddress;
+                    // 地址列表变化，下次刷新时重新扫描代币余额
+                    tokenBalancesBlock = -1;
                     runOnUiThread(() -> {
+                        if (derivedAddresses.size() == index) {
+                            // 列表已全部加载时直接追加，否则翻页时再读出
+                            derivedAddresses.add(address);
+                        }
                         updateDerivedAddressesUI();
+                        watchAddresses();
                         Toast.makeText(this,
-                                "已派生新地址 #" + currentAccountIndex,
+                                "已派生新地址 #" + index,
                                 Toast.LENGTH_SHORT).show();
                     });
                 }
@@ -242,29 +411,102 @@ public class HDWalletActivity extends AppCompatActivity {
     }
 
     private void updateWalletUI() {
-        if (currentWallet != null) {
-            String address = Constants.HEX_PREFIX + currentWallet.getAddress();
+        if (currentAddress != null) {
+            String address = Constants.HEX_PREFIX + currentAddress;
             currentAddressText.setText(address);
+            // 先显示上次的余额，查询返回后再更新
+            BigInteger balance = addressBalances.get(currentAddress);
+            currentBalanceText.setText(balance == null ? "" : formatBalance(balance));
+            loadHistory();
             refreshCurrentBalance();
             updateDerivedAddressesUI();
+            watchAddresses();
         }
     }
 
-    private void refreshCurrentBalance() {
-        if (currentWallet == null) return;
+    /**
+     * 订阅已加载的派生地址和当前地址的链上变化
+     */
+    private void watchAddresses() {
+        List<String> addresses = new ArrayList<>(derivedAddresses);
+        if (currentAddress != null && !addresses.contains(currentAddress)) {
+            addresses.add(currentAddress);
+        }
+        blockSubscriber.setAddresses(addresses);
+    }
 
-        AsyncTask.execute(() -> {
-            try {
-                String address = Constants.HEX_PREFIX + currentWallet.getAddress();
-                BigInteger balance = web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)
-                        .send().getBalance();
+    /**
+     * 新区块涉及到的地址：只查询这些地址的余额，并增量更新代币余额和转账历史
+     */
+    private void refreshAffectedBalances(Set<String> affected) {
+        List<String> addresses = new ArrayList<>(affected);
+        List<String> allAddresses = new ArrayList<>(derivedAddresses);
+        BalanceCache.getInstance(Constants.ETHEREUM_SEPOLIA_URL).refresh(addresses, new BalanceCache.Listener() {
+            @Override
+            public void onBalances(Map<String, BigInteger> balances, long blockNumber, boolean fresh) {
+                if (!fresh) return;
+                runOnUiThread(() -> {
+                    addressBalances.putAll(balances);
+                    BigInteger balance = addressBalances.get(currentAddress);
+                    if (balance != null && affected.contains(currentAddress)) {
+                        currentBalanceText.setText(formatBalance(balance));
+                    }
+                    updateDerivedAddressesUI();
+                });
+                if (blockNumber > tokenBalancesBlock) {
+                    WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, HDWalletActivity.this,
+                            "hd-token-balances", () -> refreshTokenBalances(allAddresses, blockNumber));
+                }
+                WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, HDWalletActivity.this,
+                        "hd-history", () -> syncHistory(allAddresses, blockNumber));
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                Log.e(TAG, "Refresh affected balances failed", e);
+            }
+        });
+    }
 
+    private void refreshCurrentBalance() {
+        if (currentAddress == null) return;
+
+        // 当前账户和所有派生地址一次批量查询
+        String address = currentAddress;
+        int accountIndex = currentAccountIndex;
+        List<String> addresses = new ArrayList<>(derivedAddresses);
+        // 已加载的派生地址数，addresses 前 loaded 个的位置即账户存储中的位置
+        int loaded = addresses.size();
+        if (!addresses.contains(address)) {
+            addresses.add(address);
+        }
+
+        // 先显示缓存余额，区块高度前进后再刷新
+        BalanceCache.getInstance(Constants.ETHEREUM_SEPOLIA_URL).refresh(addresses, new BalanceCache.Listener() {
+            @Override
+            public void onBalances(Map<String, BigInteger> balances, long blockNumber, boolean fresh) {
+                if (fresh) {
+                    saveBalanceSnapshots(addresses.subList(0, loaded), accountIndex, address, balances, blockNumber);
+                }
                 runOnUiThread(() -> {
-                    BigDecimal ethBalance = Convert.fromWei(balance.toString(), Convert.Unit.ETHER);
-                    String balanceString = ethBalance.setScale(6, RoundingMode.FLOOR).toPlainString() + " ETH";
-                    currentBalanceText.setText(balanceString);
+                    addressBalances.putAll(balances);
+                    BigInteger balance = addressBalances.get(address);
+                    currentBalanceText.setText(balance == null ? "查询失败" : formatBalance(balance));
+                    updateDerivedAddressesUI();
                 });
-            } catch (IOException e) {
+                if (fresh && blockNumber > tokenBalancesBlock) {
+                    // 连续点击刷新时只扫描一次
+                    WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, HDWalletActivity.this,
+                            "hd-token-balances", () -> refreshTokenBalances(addresses, blockNumber));
+                }
+                if (fresh) {
+                    WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, HDWalletActivity.this,
+                            "hd-history", () -> syncHistory(addresses, blockNumber));
+                }
+            }
+
+            @Override
+            public void onFailure(IOException e) {
                 Log.e(TAG, "Get balance failed", e);
                 runOnUiThread(() ->
                         currentBalanceText.setText("查询失败"));
@@ -272,10 +514,94 @@ public class HDWalletActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * 所有地址的代币余额通过 Multicall 一次 eth_call 读取，只在区块前进后查询，需在后台线程调用
+     */
+    private void refreshTokenBalances(List<String> addresses, long blockNumber) {
+        try {
+            TokenBalanceScanner.TokenBalances liaBalances = tokenScanner.getBalances(
+                    Collections.singletonList(Constants.LIA_ADDRESS), addresses);
+            tokenBalancesBlock = blockNumber;
+            runOnUiThread(() -> {
+                for (int i = 0; i < addresses.size(); i++) {
+                    BigInteger tokenBalance = liaBalances.getBalance(0, i);
+                    if (tokenBalance != null) {
+                        tokenBalances.put(addresses.get(i), tokenBalance);
+                    }
+                }
+                updateDerivedAddressesUI();
+            });
+        } catch (IOException e) {
+            Log.e(TAG, "Get token balances failed", e);
+        }
+    }
+
+    /**
+     * 增量索引所有地址的转账历史，新地址从 DEFAULT_LOOKBACK 个区块前开始按日志追赶，需在后台线程调用
+     */
+    private void syncHistory(List<String> addresses, long blockNumber) {
+        if (historyIndexer == null) return;
+        try {
+            historyIndexer.track(addresses, blockNumber - TransferHistoryIndexer.DEFAULT_LOOKBACK);
+            if (historyIndexer.sync() > 0) {
+                runOnUiThread(this::loadHistory);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Sync transfer history failed", e);
+        }
+    }
+
+    /**
+     * 从本地存储读取当前地址最近的转账
+     */
+    private void loadHistory() {
+        if (historyStore == null || currentAddress == null) return;
+        String address = currentAddress;
+        WalletExecutors.getInstance().runIo(this, () -> {
+            try {
+                List<HistoryStore.Transfer> transfers = historyStore.load(address, 0, HISTORY_PAGE_SIZE);
+                StringBuilder text = new StringBuilder();
+                for (HistoryStore.Transfer transfer : transfers) {
+                    if (text.length() > 0) {
+                        text.append('\n');
+                    }
+                    text.append(formatTransfer(address, transfer));
+                }
+                runOnUiThread(() -> {
+                    if (address.equals(currentAddress)) {
+                        historyText.setText(text.length() == 0 ? "暂无记录" : text.toString());
+                    }
+                });
+            } catch (IOException e) {
+                Log.e(TAG, "Load transfer history failed", e);
+            }
+        });
+    }
+
+    private String formatTransfer(String address, HistoryStore.Transfer transfer) {
+        boolean outgoing = transfer.from.equalsIgnoreCase(Numeric.cleanHexPrefix(address));
+        String counterparty = Constants.HEX_PREFIX + (outgoing ? transfer.to : transfer.from);
+        String amount;
+        if (transfer.isEther()) {
+            amount = formatBalance(transfer.value);
+        } else if (transfer.token.equalsIgnoreCase(Numeric.cleanHexPrefix(Constants.LIA_ADDRESS))) {
+            amount = transfer.value + " LIA";
+        } else {
+            amount = transfer.value + " (" + Constants.HEX_PREFIX + transfer.token.substring(0, 8) + "…)";
+        }
+        return "#" + transfer.blockNumber + (outgoing ? " 转出 " : " 转入 ") + amount
+                + (outgoing ? " → " : " ← ") + counterparty.substring(0, 10) + "…";
+    }
+
+    private String formatBalance(BigInteger balance) {
+        BigDecimal ethBalance = Convert.fromWei(balance.toString(), Convert.Unit.ETHER);
+        return ethBalance.setScale(6, RoundingMode.FLOOR).toPlainString() + " ETH";
+    }
+
     private void updateDerivedAddressesUI() {
         derivedAddressesContainer.removeAllViews();
 
-        if (derivedWallets.isEmpty()) {
+        if (derivedAddresses.isEmpty()) {
             derivedAddressesLabel.setVisibility(View.VISIBLE);
             derivedAddressesContainer.setVisibility(View.GONE);
             return;
@@ -284,14 +610,23 @@ public class HDWalletActivity extends AppCompatActivity {
         derivedAddressesLabel.setVisibility(View.GONE);
         derivedAddressesContainer.setVisibility(View.VISIBLE);
 
-        for (int i = 0; i < derivedWallets.size(); i++) {
-            WalletFile wallet = derivedWallets.get(i);
-            View addressView = createAddressView(wallet, i);
+        for (int i = 0; i < derivedAddresses.size(); i++) {
+            String address = derivedAddresses.get(i);
+            View addressView = createAddressView(address, i);
             derivedAddressesContainer.addView(addressView);
         }
+
+        if (derivedAddresses.size() < totalAccounts) {
+            Button loadMoreBtn = new Button(this);
+            loadMoreBtn.setText(String.format("加载更多 (%d/%d)", derivedAddresses.size(), totalAccounts));
+            loadMoreBtn.setBackgroundResource(R.drawable.button_small);
+            loadMoreBtn.setTextColor(getResources().getColor(android.R.color.white));
+            loadMoreBtn.setOnClickListener(v -> loadMoreDerivedWallets());
+            derivedAddressesContainer.addView(loadMoreBtn);
+        }
     }
 
-    private View createAddressView(WalletFile wallet, int index) {
+    private View createAddressView(String address, int index) {
         LinearLayout layout = new LinearLayout(this);
         layout.setOrientation(LinearLayout.HORIZONTAL);
         layout.setPadding(8, 8, 8, 8);
@@ -306,8 +641,17 @@ public class HDWalletActivity extends AppCompatActivity {
         textView.setLayoutParams(new LinearLayout.LayoutParams(0,
                 LinearLayout.LayoutParams.WRAP_CONTENT, 1));
         textView.setTextSize(12);
-        textView.setText(String.format("地址 #%d: %s", index,
-                Constants.HEX_PREFIX + wallet.getAddress()));
+        BigInteger balance = addressBalances.get(address);
+        BigInteger tokenBalance = tokenBalances.get(address);
+        StringBuilder addressLabel = new StringBuilder(
+                String.format("地址 #%d: %s", index, Constants.HEX_PREFIX + address));
+        if (balance != null) {
+            addressLabel.append("\n余额: ").append(formatBalance(balance));
+        }
+        if (tokenBalance != null) {
+            addressLabel.append("\nLIA: ").append(tokenBalance.toString());
+        }
+        textView.setText(addressLabel);
 
         Button selectBtn = new Button(this);
         selectBtn.setLayoutParams(new LinearLayout.LayoutParams(
@@ -316,7 +660,7 @@ public class HDWalletActivity extends AppCompatActivity {
         selectBtn.setText("选择");
         selectBtn.setBackgroundResource(R.drawable.button_small);
         selectBtn.setTextColor(getResources().getColor(android.R.color.white));
-        selectBtn.setOnClickListener(v -> selectWallet(wallet, index));
+        selectBtn.setOnClickListener(v -> selectWallet(address, index));
 
         layout.addView(textView);
         layout.addView(selectBtn);
@@ -324,15 +668,19 @@ public class HDWalletActivity extends AppCompatActivity {
         return layout;
     }
 
-    private void selectWallet(WalletFile wallet, int index) {
-        currentWallet = wallet;
+    private void selectWallet(String address, int index) {
+        if (!address.equals(currentAddress) && hdWallet) {
+            // 切换账户后，KeyStore 在下次导出时重新生成
+            currentWallet = null;
+        }
+        currentAddress = address;
         currentAccountIndex = index;
         updateWalletUI();
         Toast.makeText(this, "已切换到地址 #" + index, Toast.LENGTH_SHORT).show();
     }
 
     private void toggleKeystoreDisplay() {
-        if (currentWallet == null) {
+        if (currentAddress == null) {
             Toast.makeText(this, "请先创建钱包", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -341,17 +689,23 @@ public class HDWalletActivity extends AppCompatActivity {
             keystoreText.setVisibility(View.GONE);
             btnShowKeystore.setText("显示KeyStore");
         } else {
-            String keystore = EthWalletController.getInstance().exportKeyStore(currentWallet);
-            keystoreText.setText(keystore);
-            keystoreText.setVisibility(View.VISIBLE);
-            privateKeyText.setVisibility(View.GONE);
-            btnShowKeystore.setText("隐藏KeyStore");
-            btnShowPrivateKey.setText("显示私钥");
+            WalletExecutors.getInstance().submit(WalletExecutors.Pool.CPU, this, "hd-export-keystore", () -> {
+                WalletFile walletFile = requireCurrentWalletFile();
+                if (walletFile == null) return;
+                String keystore = EthWalletController.getInstance().exportKeyStore(walletFile);
+                runOnUiThread(() -> {
+                    keystoreText.setText(keystore);
+                    keystoreText.setVisibility(View.VISIBLE);
+                    privateKeyText.setVisibility(View.GONE);
+                    btnShowKeystore.setText("隐藏KeyStore");
+                    btnShowPrivateKey.setText("显示私钥");
+                });
+            });
         }
     }
 
     private void togglePrivateKeyDisplay() {
-        if (currentWallet == null) {
+        if (currentAddress == null) {
             Toast.makeText(this, "请先创建钱包", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -360,15 +714,42 @@ public class HDWalletActivity extends AppCompatActivity {
             privateKeyText.setVisibility(View.GONE);
             btnShowPrivateKey.setText("显示私钥");
         } else {
-            String privateKey = EthWalletController.getInstance().exportPrivateKey(currentWallet);
-            privateKeyText.setText(privateKey);
-            privateKeyText.setVisibility(View.VISIBLE);
-            keystoreText.setVisibility(View.GONE);
-            btnShowPrivateKey.setText("隐藏私钥");
-            btnShowKeystore.setText("显示KeyStore");
+            WalletExecutors.getInstance().submit(WalletExecutors.Pool.CPU, this, "hd-export-private-key", () -> {
+                WalletFile walletFile = requireCurrentWalletFile();
+                if (walletFile == null) return;
+                String privateKey = EthWalletController.getInstance().exportPrivateKey(walletFile);
+                runOnUiThread(() -> {
+                    privateKeyText.setText(privateKey);
+                    privateKeyText.setVisibility(View.VISIBLE);
+                    keystoreText.setVisibility(View.GONE);
+                    btnShowPrivateKey.setText("隐藏私钥");
+                    btnShowKeystore.setText("显示KeyStore");
+                });
+            });
         }
     }
 
+    /**
+     * 按需生成当前账户的 KeyStore（只在导出时执行 scrypt），需在后台线程调用
+     */
+    private WalletFile requireCurrentWalletFile() {
+        if (currentWallet == null && hdWallet) {
+            currentWallet = bip39Manager.deriveNewAddress(
+                    requireMnemonics(), Constants.PASSWORD, currentAccountIndex);
+        }
+        return currentWallet;
+    }
+
+    /**
+     * 按需读取助记词，冷启动时不解码
+     */
+    private List<String> requireMnemonics() {
+        if (currentMnemonics == null && hdWallet) {
+            currentMnemonics = loadEncryptedMnemonic();
+        }
+        return currentMnemonics;
+    }
+
     private void showMnemonicBackupDialog(List<String> mnemonics) {
         StringBuilder mnemonicTextBuilder = new StringBuilder();
         for (int i = 0; i < mnemonics.size(); i++) {
@@ -407,37 +788,58 @@ public class HDWalletActivity extends AppCompatActivity {
 
     /**
      * 加载已存在的钱包
+     * 冷启动只读取账户存储和余额快照直接显示，不解码助记词也不派生任何密钥，耗时与账户数量无关
      */
     private void loadExistingWallet() {
-        AsyncTask.execute(() -> {
+        WalletExecutors.getInstance().runIo(this, () -> {
             try {
-                // 1. 检查是否有加密的助记词
                 SharedPreferences prefs = getSharedPreferences("wallet_prefs", Context.MODE_PRIVATE);
-                String encryptedMnemonic = prefs.getString("encrypted_mnemonic", null);
+                hdWallet = prefs.contains("encrypted_mnemonic");
 
-                if (encryptedMnemonic != null) {
-                    // 2. 解密助记词
-                    String mnemonicString = new String(
-                            Base64.decode(encryptedMnemonic, Base64.DEFAULT),
-                            StandardCharsets.UTF_8
-                    );
+                if (hdWallet && accountStore != null) {
+                    currentAccountIndex = prefs.getInt("current_account_index", 0);
+                    migrateLegacyDerivedWallets();
+                    totalAccounts = accountStore.size();
+
+                    if (currentAccountIndex < totalAccounts) {
+                        // 1. 第一页账户和当前账户都直接从存储读取
+                        List<String> addresses = new ArrayList<>();
+                        for (AccountStore.Account account : accountStore.load(0, ACCOUNT_PAGE_SIZE)) {
+                            addresses.add(account.address);
+                        }
+                        String address = currentAccountIndex < addresses.size()
+                                ? addresses.get(currentAccountIndex)
+                                : accountStore.get(currentAccountIndex).address;
+                        // 2. 上次查询到的余额
+                        Map<String, BigInteger> balances = loadBalanceSnapshots(addresses, 0);
 
-                    currentMnemonics = Arrays.asList(mnemonicString.split(" "));
+                        runOnUiThread(() -> {
+                            currentAddress = address;
+                            currentWallet = null;
+                            derivedAddresses.clear();
+                            derivedAddresses.addAll(addresses);
+                            addressBalances.putAll(balances);
+                            updateWalletUI();
+                        });
+                        return;
+                    }
+                }
 
-                    // 3. 加载当前账户索引
+                if (hdWallet) {
+                    // 3. 账户存储中没有当前账户（旧版本升级），派生一次后写入存储
                     currentAccountIndex = prefs.getInt("current_account_index", 0);
+                    String address = bip39Manager.deriveAddress(requireMnemonics(), currentAccountIndex);
 
-                    // 4. 重新派生当前钱包
-                    WalletFile currentWalletFile = bip39Manager.deriveNewAddress(
-                            currentMnemonics, Constants.PASSWORD, currentAccountIndex);
-
-                    if (currentWalletFile != null) {
-                        currentWallet = currentWalletFile;
+                    if (address != null) {
+                        currentAddress = address;
+                        currentWallet = null;
 
-                        // 5. 加载所有派生钱包
-                        loadDerivedWallets();
+                        // 4. 加载所有派生钱包
+                        List<String> addresses = loadDerivedWallets();
 
                         runOnUiThread(() -> {
+                            derivedAddresses.clear();
+                            derivedAddresses.addAll(addresses);
                             updateWalletUI();
                             Toast.makeText(HDWalletActivity.this,
                                     "钱包加载成功", Toast.LENGTH_SHORT).show();
@@ -446,7 +848,7 @@ public class HDWalletActivity extends AppCompatActivity {
                     }
                 }
 
-                // 6. 如果没有助记词，尝试从钱包文件加载
+                // 5. 如果没有助记词，尝试从钱包文件加载
                 loadFromWalletFiles();
 
             } catch (Exception e) {
@@ -464,25 +866,22 @@ public class HDWalletActivity extends AppCompatActivity {
     private void loadFromWalletFiles() {
         try {
             File walletDir = getDir("eth2", Context.MODE_PRIVATE);
-            if (walletDir.exists() && walletDir.listFiles().length > 0) {
-                File[] files = walletDir.listFiles();
-                if (files != null && files.length > 0) {
-                    // 加载第一个钱包文件
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    WalletFile walletFile = objectMapper.readValue(files[0], WalletFile.class);
-
-                    currentWallet = walletFile;
-                    derivedWallets.clear();
-                    derivedWallets.add(walletFile);
-                    currentAccountIndex = 0;
+            // 通过目录索引定位钱包文件，只解析第一个
+            WalletFile walletFile = KeystoreRepository.getInstance(walletDir).loadFirst();
+            if (walletFile != null) {
+                currentWallet = walletFile;
+                currentAddress = walletFile.getAddress();
+                String address = currentAddress;
 
-                    runOnUiThread(() -> {
-                        updateWalletUI();
-                        Toast.makeText(this,
-                                "检测到旧版钱包，请备份后使用HD钱包功能",
-                                Toast.LENGTH_LONG).show();
-                    });
-                }
+                runOnUiThread(() -> {
+                    derivedAddresses.clear();
+                    derivedAddresses.add(address);
+                    currentAccountIndex = 0;
+                    updateWalletUI();
+                    Toast.makeText(this,
+                            "检测到旧版钱包，请备份后使用HD钱包功能",
+                            Toast.LENGTH_LONG).show();
+                });
             } else {
                 runOnUiThread(() ->
                         Log.d(TAG, "No existing wallet found")
@@ -497,34 +896,85 @@ public class HDWalletActivity extends AppCompatActivity {
     }
 
     /**
-     * 加载所有派生钱包
+     * 从账户存储读取第一页派生钱包，不重新派生；需在后台线程调用，结果在 UI 线程写入 derivedAddresses
      */
-    private void loadDerivedWallets() {
+    private List<String> loadDerivedWallets() {
+        List<String> addresses = new ArrayList<>();
         try {
-            derivedWallets.clear();
-            SharedPreferences prefs = getSharedPreferences("wallet_prefs", Context.MODE_PRIVATE);
+            if (accountStore == null) {
+                if (currentAddress != null) {
+                    addresses.add(currentAddress);
+                }
+                return addresses;
+            }
 
-            int walletCount = prefs.getInt("derived_wallet_count", 0);
+            migrateLegacyDerivedWallets();
 
-            if (walletCount > 0 && currentMnemonics != null) {
-                for (int i = 0; i <= walletCount; i++) {
-                    WalletFile wallet = bip39Manager.deriveNewAddress(
-                            currentMnemonics, Constants.PASSWORD, i);
-                    if (wallet != null) {
-                        derivedWallets.add(wallet);
-                    }
-                }
-                Log.d(TAG, "Loaded " + derivedWallets.size() + " derived wallets");
-            } else {
+            if (accountStore.size() == 0 && currentAddress != null) {
                 // 如果没有保存的派生钱包，至少添加当前钱包
-                if (currentWallet != null) {
-                    derivedWallets.add(currentWallet);
-                }
+                appendDerivedWallet(0, currentAddress);
+            }
+            totalAccounts = accountStore.size();
+            for (AccountStore.Account account : accountStore.load(0, ACCOUNT_PAGE_SIZE)) {
+                addresses.add(account.address);
             }
+            Log.d(TAG, "Loaded " + addresses.size() + "/" + totalAccounts + " derived wallets");
 
         } catch (Exception e) {
             Log.e(TAG, "Load derived wallets failed", e);
         }
+        return addresses;
+    }
+
+    /**
+     * 加载下一页派生钱包
+     */
+    private void loadMoreDerivedWallets() {
+        int offset = derivedAddresses.size();
+        WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, this, "hd-load-more", () -> {
+            try {
+                List<String> addresses = new ArrayList<>();
+                for (AccountStore.Account account : accountStore.load(offset, ACCOUNT_PAGE_SIZE)) {
+                    addresses.add(account.address);
+                }
+                Map<String, BigInteger> balances = loadBalanceSnapshots(addresses, offset);
+                runOnUiThread(() -> {
+                    if (derivedAddresses.size() != offset) return;
+                    derivedAddresses.addAll(addresses);
+                    addressBalances.putAll(balances);
+                    updateDerivedAddressesUI();
+                    watchAddresses();
+                });
+            } catch (IOException e) {
+                Log.e(TAG, "Load more derived wallets failed", e);
+            }
+        });
+    }
+
+    /**
+     * 旧版本把派生地址逐个保存在 SharedPreferences 中，首次启动时导入账户存储后删除
+     */
+    private void migrateLegacyDerivedWallets() throws IOException {
+        SharedPreferences prefs = getSharedPreferences("wallet_prefs", Context.MODE_PRIVATE);
+        int walletCount = prefs.getInt("derived_wallet_count", 0);
+        if (walletCount == 0) {
+            return;
+        }
+        SharedPreferences.Editor editor = prefs.edit().remove("derived_wallet_count");
+        if (accountStore.size() == 0) {
+            List<AccountStore.Account> accounts = new ArrayList<>(walletCount);
+            for (int i = 0; i < walletCount; i++) {
+                String address = prefs.getString("derived_wallet_" + i, null);
+                if (address == null) break;
+                accounts.add(new AccountStore.Account(i, address, Bip39WalletManager.accountPath(i), null));
+            }
+            accountStore.appendAll(accounts);
+            Log.d(TAG, "Migrated " + accounts.size() + " derived wallets");
+        }
+        for (int i = 0; i < walletCount; i++) {
+            editor.remove("derived_wallet_" + i);
+        }
+        editor.apply();
     }
 
     /**
@@ -555,17 +1005,9 @@ public class HDWalletActivity extends AppCompatActivity {
         try {
             // 获取钱包存储目录
             File walletDir = getDir("eth2", Context.MODE_PRIVATE);
-            if (!walletDir.exists()) {
-                walletDir.mkdirs();
-            }
-
-            // 生成钱包文件名
-            String walletFileName = getWalletFileName(walletFile);
-            File destination = new File(walletDir, walletFileName);
 
-            // 使用 ObjectMapper 写入钱包文件
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.writeValue(destination, walletFile);
+            // 写入钱包文件，同时更新目录索引
+            KeystoreRepository.getInstance(walletDir).save(getWalletFileName(walletFile), walletFile);
 
             // 保存助记词（加密存储）
             if (currentMnemonics != null && !currentMnemonics.isEmpty()) {
@@ -625,27 +1067,79 @@ public class HDWalletActivity extends AppCompatActivity {
     }
 
     /**
-     * 保存派生钱包列表
+     * 追加一个派生钱包到账户存储，index 必须是下一个账户位置
+     *  @return 该位置已被其他任务占用时返回 false
      */
-    private void saveDerivedWallets() {
+    private boolean appendDerivedWallet(int index, String address) throws IOException {
+        if (accountStore == null) return true;
         try {
-            SharedPreferences prefs = getSharedPreferences("wallet_prefs", Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-
-            // 保存派生钱包数量
-            editor.putInt("derived_wallet_count", derivedWallets.size());
+            return accountStore.appendIfNext(new AccountStore.Account(index, address,
+                    Bip39WalletManager.accountPath(index), null));
+        } finally {
+            totalAccounts = accountStore.size();
+        }
+    }
 
-            // 保存每个派生钱包的地址
-            for (int i = 0; i < derivedWallets.size(); i++) {
-                WalletFile wallet = derivedWallets.get(i);
-                editor.putString("derived_wallet_" + i, wallet.getAddress());
+    /**
+     * 新建或恢复钱包后，账户存储只保留账户 #0
+     */
+    private void resetDerivedWallets(String firstAddress) {
+        if (accountStore == null) return;
+        try {
+            accountStore.clear();
+            totalAccounts = 0;
+            if (balanceSnapshots != null) {
+                balanceSnapshots.clear();
+            }
+            if (historyStore != null) {
+                historyStore.clear();
             }
+            appendDerivedWallet(0, firstAddress);
+        } catch (IOException e) {
+            Log.e(TAG, "Reset derived wallets failed", e);
+        }
+    }
 
-            editor.apply();
-            Log.d(TAG, "Derived wallets saved: " + derivedWallets.size());
+    /**
+     * 读取 [offset, offset + count) 账户的余额快照，需在后台线程调用
+     */
+    private Map<String, BigInteger> loadBalanceSnapshots(List<String> addresses, int offset) {
+        Map<String, BigInteger> balances = new HashMap<>();
+        if (balanceSnapshots == null) return balances;
+        try {
+            BalanceSnapshotStore.Snapshot[] snapshots = balanceSnapshots.load(offset, addresses.size());
+            for (int i = 0; i < snapshots.length; i++) {
+                if (snapshots[i] != null) {
+                    balances.put(addresses.get(i), snapshots[i].balance);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Load balance snapshots failed", e);
+        }
+        return balances;
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Save derived wallets failed", e);
+    /**
+     * 保存已加载账户的最新余额，下次冷启动先行显示
+     *  @param loadedAddresses 已加载的派生地址，位置即账户存储中的位置
+     *  @param currentIndex 当前账户的索引，不在已加载范围内时单独写入它的槽位
+     */
+    private void saveBalanceSnapshots(List<String> loadedAddresses, int currentIndex, String currentAddress,
+                                      Map<String, BigInteger> balances, long blockNumber) {
+        if (balanceSnapshots == null) return;
+        int count = Math.min(loadedAddresses.size(), totalAccounts);
+        List<BigInteger> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(balances.get(loadedAddresses.get(i)));
+        }
+        try {
+            balanceSnapshots.save(0, values, blockNumber);
+            if (currentIndex >= count && currentIndex < totalAccounts) {
+                balanceSnapshots.save(currentIndex,
+                        Collections.singletonList(balances.get(currentAddress)), blockNumber);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Save balance snapshots failed", e);
         }
     }
-}
\ No newline at end of file
+}
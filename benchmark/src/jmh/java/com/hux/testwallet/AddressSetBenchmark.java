@@ -0,0 +1,108 @@
+package com.hux.testwallet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.web3j.utils.Numeric;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个区块内所有交易的 from/to 与本钱包地址匹配
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddressSetBenchmark {
+
+    // 每个区块的交易数，每笔交易 from、to 两个地址
+    private static final int TRANSACTIONS_PER_BLOCK = 300;
+    // 区块中属于本钱包的地址个数
+    private static final int OWNED_IN_BLOCK = 3;
+
+    @Param({"1000", "100000"})
+    public int ownedAddresses;
+
+    private AddressSet addressSet;
+    private Set<String> stringSet;
+    // 区块中的地址，20 字节紧密排列
+    private byte[] blockAddresses;
+    private String[] blockHexAddresses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        addressSet = new AddressSet(ownedAddresses);
+        stringSet = new HashSet<>(ownedAddresses * 2);
+        byte[] address = new byte[20];
+        byte[][] owned = new byte[ownedAddresses][];
+        for (int i = 0; i < ownedAddresses; i++) {
+            random.nextBytes(address);
+            owned[i] = address.clone();
+            addressSet.add(address, 0);
+            stringSet.add(Numeric.toHexStringNoPrefix(address));
+        }
+
+        int count = TRANSACTIONS_PER_BLOCK * 2;
+        blockAddresses = new byte[count * 20];
+        blockHexAddresses = new String[count];
+        random.nextBytes(blockAddresses);
+        for (int i = 0; i < OWNED_IN_BLOCK; i++) {
+            System.arraycopy(owned[random.nextInt(ownedAddresses)], 0, blockAddresses,
+                    random.nextInt(count) * 20, 20);
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[20];
+            System.arraycopy(blockAddresses, i * 20, bytes, 0, 20);
+            blockHexAddresses[i] = Numeric.toHexString(bytes);
+        }
+    }
+
+    @Benchmark
+    public int matchBlockBytes() {
+        int matches = 0;
+        for (int offset = 0; offset < blockAddresses.length; offset += 20) {
+            if (addressSet.contains(blockAddresses, offset)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * JSON-RPC 返回的十六进制地址直接匹配，不转换成 byte[]
+     */
+    @Benchmark
+    public int matchBlockHex() {
+        int matches = 0;
+        for (String address : blockHexAddresses) {
+            if (addressSet.contains(address)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 对照：去掉前缀、转小写后查 HashSet<String>
+     */
+    @Benchmark
+    public int matchBlockStringSet() {
+        int matches = 0;
+        for (String address : blockHexAddresses) {
+            if (stringSet.contains(Numeric.cleanHexPrefix(address).toLowerCase())) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
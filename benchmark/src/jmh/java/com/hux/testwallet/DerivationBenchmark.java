@@ -0,0 +1,95 @@
+package com.hux.testwallet;
+
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.web3j.crypto.ECKeyPair;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按索引区间派生：逐个生成 KeyStore、只派生地址、只派生密钥对、按字符串路径逐层派生，以及经节点树缓存按路径派生
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DerivationBenchmark {
+
+    @Param({"1", "16", "128"})
+    public int count;
+
+    private Bip39WalletManager manager;
+    private DeterministicKey masterKey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = Bip39WalletManager.getInstance();
+        masterKey = HDKeyDerivation.createMasterPrivateKey(
+                manager.getDerivationContext(MnemonicBenchmark.MNEMONICS).getSeed());
+    }
+
+    /**
+     * 旧路径：每个索引都派生并生成 KeyStore
+     */
+    @Benchmark
+    public void deriveNewAddress(Blackhole blackhole) {
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(manager.deriveNewAddress(MnemonicBenchmark.MNEMONICS, Constants.PASSWORD, i));
+        }
+    }
+
+    /**
+     * 只派生地址，走公钥链并行派生
+     */
+    @Benchmark
+    public List<String> deriveAddresses() {
+        return manager.deriveAddresses(MnemonicBenchmark.MNEMONICS, 0, count);
+    }
+
+    @Benchmark
+    public List<ECKeyPair> deriveKeyPairs() {
+        return manager.deriveKeyPairs(MnemonicBenchmark.MNEMONICS, 0, count);
+    }
+
+    /**
+     * 从主密钥按完整路径字符串逐层派生（含三层硬化派生）
+     */
+    @Benchmark
+    public void deriveChildKeyFromPath(Blackhole blackhole) {
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(manager.deriveChildKeyFromPath(masterKey, "m/44'/60'/0'/0/" + i));
+        }
+    }
+
+    /**
+     * 按 DerivationPath 经节点树缓存派生：兄弟节点只派生最后一层
+     */
+    @Benchmark
+    public void deriveKeyFromPathCache(Blackhole blackhole) {
+        HDDerivationContext context = manager.getDerivationContext(MnemonicBenchmark.MNEMONICS);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(context.deriveKey(DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 0, i)));
+        }
+    }
+
+    /**
+     * Ledger Live 风格路径 m/44'/60'/i'/0/0：每个账户各有一个硬化层级，m/44'/60' 由缓存共享
+     */
+    @Benchmark
+    public void deriveLedgerLiveAccounts(Blackhole blackhole) {
+        HDDerivationContext context = manager.getDerivationContext(MnemonicBenchmark.MNEMONICS);
+        for (int i = 0; i < count; i++) {
+            blackhole.consume(context.deriveAddress(DerivationPath.ledgerLive(i)));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hux.testwallet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.web3j.crypto.WalletFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新建钱包（含写文件和目录索引）与导出 KeyStore / 私钥
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeystoreBenchmark {
+
+    private EthWalletController controller;
+    private File walletDir;
+    private WalletFile wallet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        controller = EthWalletController.getInstance();
+        walletDir = Files.createTempDirectory("keystore-bench").toFile();
+        wallet = controller.createNewWallet(walletDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.lock();
+        File[] files = walletDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        walletDir.delete();
+        new File(walletDir.getParentFile(), walletDir.getName() + ".idx").delete();
+    }
+
+    @Benchmark
+    public WalletFile createNewWallet() {
+        WalletFile created = controller.createNewWallet(walletDir);
+        controller.removeWallet(created.getAddress());
+        return created;
+    }
+
+    @Benchmark
+    public String exportKeyStore() {
+        return controller.exportKeyStore(wallet);
+    }
+
+    /**
+     * 解锁会话命中，不执行 scrypt
+     */
+    @Benchmark
+    public String exportPrivateKeyUnlocked() {
+        return controller.exportPrivateKey(wallet);
+    }
+
+    /**
+     * 每次先锁定，包含一次 scrypt 解密
+     */
+    @Benchmark
+    public String exportPrivateKeyLocked(LockedState state) {
+        return controller.exportPrivateKey(wallet);
+    }
+
+    @State(Scope.Thread)
+    public static class LockedState {
+        @Setup(Level.Invocation)
+        public void lock() {
+            EthWalletController.getInstance().lock();
+        }
+    }
+}
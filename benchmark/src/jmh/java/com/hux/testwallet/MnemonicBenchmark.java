@@ -0,0 +1,64 @@
+package com.hux.testwallet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.web3j.crypto.WalletFile;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 助记词生成与从助记词创建钱包
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MnemonicBenchmark {
+
+    static final List<String> MNEMONICS = Arrays.asList(
+            "abandon", "abandon", "abandon", "abandon", "abandon", "abandon",
+            "abandon", "abandon", "abandon", "abandon", "abandon", "about");
+
+    private Bip39WalletManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = Bip39WalletManager.getInstance();
+    }
+
+    @Benchmark
+    public List<String> generateMnemonic() {
+        return manager.generateMnemonic();
+    }
+
+    /**
+     * 派生上下文已缓存：只有子密钥派生和 KeyStore 加密
+     */
+    @Benchmark
+    public WalletFile createWalletFromMnemonicWarm() {
+        return manager.createWalletFromMnemonic(MNEMONICS, Constants.PASSWORD);
+    }
+
+    /**
+     * 每次都锁定上下文，包含 PBKDF2 种子计算和硬化父节点派生
+     */
+    @Benchmark
+    public WalletFile createWalletFromMnemonicCold(ColdState state) {
+        return manager.createWalletFromMnemonic(MNEMONICS, Constants.PASSWORD);
+    }
+
+    @State(Scope.Thread)
+    public static class ColdState {
+        @Setup(Level.Invocation)
+        public void lock() {
+            Bip39WalletManager.getInstance().lock();
+        }
+    }
+}
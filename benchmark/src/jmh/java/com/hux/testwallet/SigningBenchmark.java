@@ -0,0 +1,89 @@
+package com.hux.testwallet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.web3j.crypto.CipherException;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 与 onSendEth 相同的签名路径：解锁 KeyStore 后签名 EIP-1559 转账
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SigningBenchmark {
+
+    private static final long CHAIN_ID = 11155111L;
+    private static final BigInteger GAS_LIMIT = BigInteger.valueOf(21000);
+    private static final BigInteger MAX_PRIORITY_FEE = Convert.toWei("1.5", Convert.Unit.GWEI).toBigInteger();
+    private static final BigInteger MAX_FEE = Convert.toWei("30", Convert.Unit.GWEI).toBigInteger();
+    private static final BigInteger VALUE = Convert.toWei("0.001", Convert.Unit.ETHER).toBigInteger();
+
+    private EthWalletController controller;
+    private WalletFile wallet;
+    private Credentials credentials;
+    private long nonce;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        controller = EthWalletController.getInstance();
+        ECKeyPair keyPair = Keys.createEcKeyPair();
+        wallet = Wallet.createLight(Constants.PASSWORD, keyPair);
+        credentials = Credentials.create(keyPair);
+    }
+
+    /**
+     * 只签名
+     */
+    @Benchmark
+    public String sign() {
+        return sign(credentials);
+    }
+
+    /**
+     * 解锁会话命中后签名，即连续发送时的路径
+     */
+    @Benchmark
+    public String unlockAndSignWarm() throws CipherException {
+        return sign(controller.unlock(wallet));
+    }
+
+    /**
+     * 会话已锁定，先 scrypt 解密再签名，即首次发送时的路径
+     */
+    @Benchmark
+    public String unlockAndSignCold(LockedState state) throws CipherException {
+        return sign(controller.unlock(wallet));
+    }
+
+    private String sign(Credentials signer) {
+        RawTransaction rawTransaction = RawTransaction.createEtherTransaction(CHAIN_ID,
+                BigInteger.valueOf(nonce++), GAS_LIMIT, Constants.LIA_ADDRESS, VALUE, MAX_PRIORITY_FEE, MAX_FEE);
+        return Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, signer));
+    }
+
+    @State(Scope.Thread)
+    public static class LockedState {
+        @Setup(Level.Invocation)
+        public void lock() {
+            EthWalletController.getInstance().lock();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * BIP44 间隔上限（gap limit）账户发现
+ * 按窗口批量派生地址，每个窗口的 eth_getTransactionCount 和 eth_getBalance 合并为一次异步 JSON-RPC 批量请求，
+ * 同时保持多个窗口在途；按索引顺序处理结果，连续 gapLimit 个地址都没有交易和余额时停止
+ */
+public class AccountDiscovery {
+
+    private static final String TAG = "AccountDiscovery";
+
+    public static final int DEFAULT_GAP_LIMIT = 20;
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final JsonRpcBatchClient batchClient;
+    private final int gapLimit;
+    private final int windowSize;
+    private final int maxInFlight;
+
+    public AccountDiscovery(JsonRpcBatchClient batchClient) {
+        this(batchClient, DEFAULT_GAP_LIMIT, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AccountDiscovery(JsonRpcBatchClient batchClient, int gapLimit, int windowSize, int maxInFlight) {
+        if (gapLimit <= 0 || windowSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Invalid discovery parameters");
+        }
+        this.batchClient = batchClient;
+        this.gapLimit = gapLimit;
+        this.windowSize = windowSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * 发现助记词下已使用的账户，需在后台线程调用
+     * 结果至少包含账户 #0；停止时仍在途的窗口结果被丢弃
+     */
+    public Result discover(HDDerivationContext context) throws IOException {
+        ArrayDeque<Window> inFlight = new ArrayDeque<>(maxInFlight);
+        List<String> addresses = new ArrayList<>();
+        List<BigInteger> balances = new ArrayList<>();
+        int nextIndex = 0;
+        int lastUsed = -1;
+        try {
+            while (true) {
+                // 派生在本线程进行（内部并行），期间前面的窗口已经在网络上
+                while (inFlight.size() < maxInFlight) {
+                    inFlight.add(probe(context, nextIndex));
+                    nextIndex += windowSize;
+                }
+                Window window = inFlight.poll();
+                window.await();
+                for (int i = 0; i < window.addresses.size(); i++) {
+                    addresses.add(window.addresses.get(i));
+                    balances.add(window.balances[i]);
+                    if (window.isUsed(i)) {
+                        lastUsed = window.start + i;
+                    }
+                }
+                if (addresses.size() - (lastUsed + 1) >= gapLimit) {
+                    break;
+                }
+            }
+        } finally {
+            for (Window window : inFlight) {
+                window.future.cancel(false);
+            }
+        }
+        int count = Math.max(1, lastUsed + 1);
+        WalletLog.d(TAG, "Discovered {} used accounts, probed {}", count, addresses.size());
+        return new Result(new ArrayList<>(addresses.subList(0, count)),
+                new ArrayList<>(balances.subList(0, count)), addresses.size());
+    }
+
+    private Window probe(HDDerivationContext context, int start) {
+        final Window window = new Window(start, context.deriveAddresses(start, start + windowSize));
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>(windowSize * 2);
+        for (String address : window.addresses) {
+            String hexAddress = Numeric.prependHexPrefix(address);
+            requests.add(new JsonRpcBatchClient.Request("eth_getTransactionCount", hexAddress, "latest"));
+            requests.add(new JsonRpcBatchClient.Request("eth_getBalance", hexAddress, "latest"));
+        }
+        window.future = batchClient.sendAsync(requests, new JsonRpcBatchClient.ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+                    window.failed = "Unexpected result for " + window.addresses.get(index / 2);
+                    return;
+                }
+                BigInteger value = Numeric.decodeQuantity(parser.getText());
+                if (index % 2 == 0) {
+                    window.nonces[index / 2] = value;
+                } else {
+                    window.balances[index / 2] = value;
+                }
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                window.failed = code + " " + message;
+            }
+        });
+        return window;
+    }
+
+    private static class Window {
+        final int start;
+        final List<String> addresses;
+        final BigInteger[] nonces;
+        final BigInteger[] balances;
+        // 回调与 await 之间由 future 的完成建立可见性
+        String failed;
+        CompletableFuture<Void> future;
+
+        Window(int start, List<String> addresses) {
+            this.start = start;
+            this.addresses = addresses;
+            this.nonces = new BigInteger[addresses.size()];
+            this.balances = new BigInteger[addresses.size()];
+        }
+
+        void await() throws IOException {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Account discovery interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            for (int i = 0; i < addresses.size() && failed == null; i++) {
+                if (nonces[i] == null || balances[i] == null) {
+                    failed = "missing result for " + addresses.get(i);
+                }
+            }
+            // 单个地址查询失败时无法判断是否使用过，不能据此推进间隔计数
+            if (failed != null) {
+                throw new IOException("Probe accounts [" + start + ", " + (start + addresses.size())
+                        + ") failed: " + failed);
+            }
+        }
+
+        boolean isUsed(int i) {
+            return nonces[i].signum() > 0 || balances[i].signum() > 0;
+        }
+    }
+
+    /**
+     * 发现结果：账户 #0 到最后一个使用过的账户
+     */
+    public static class Result {
+        // 地址（不带0x前缀），下标即账户索引
+        public final List<String> addresses;
+        // 探测时的余额（wei）
+        public final List<BigInteger> balances;
+        // 实际探测过的地址数
+        public final int probed;
+
+        Result(List<String> addresses, List<BigInteger> balances, int probed) {
+            this.addresses = Collections.unmodifiableList(addresses);
+            this.balances = Collections.unmodifiableList(balances);
+            this.probed = probed;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 派生账户存储
+ * 定长记录的追加写文件：账户索引、20字节地址、派生路径、标签；
+ * 追加为 O(1)，按位置直接定位记录，支持分页读取，启动时不需要重新派生或解析全部账户
+ */
+public class AccountStore implements Closeable {
+
+    private static final int MAGIC = 0x41434354; // "ACCT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final int ADDRESS_SIZE = 20;
+    private static final int MAX_PATH_DEPTH = 6;
+    private static final int MAX_LABEL_BYTES = 46;
+    // index(4) + address(20) + depth(1) + path(24) + labelLength(1) + label(46)
+    static final int RECORD_SIZE = 4 + ADDRESS_SIZE + 1 + MAX_PATH_DEPTH * 4 + 1 + MAX_LABEL_BYTES;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private int count;
+
+    public AccountStore(File storeFile) throws IOException {
+        file = new RandomAccessFile(storeFile, "rw");
+        channel = file.getChannel();
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                close();
+                throw new IOException("Unsupported account store: " + storeFile);
+            }
+        }
+        // 末尾不完整的记录（写入中断）会在下次追加时被覆盖
+        count = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 追加一个账户，返回其在存储中的位置；账户索引必须等于当前账户数（位置即账户索引）
+     */
+    public synchronized int append(Account account) throws IOException {
+        if (account.index != count) {
+            throw new IllegalArgumentException("Account index " + account.index
+                    + " does not match position " + count);
+        }
+        writeFully(encode(account), HEADER_SIZE + (long) count * RECORD_SIZE);
+        return count++;
+    }
+
+    /**
+     * 账户索引等于当前账户数时追加并返回 true，否则不写入并返回 false
+     * 并发派生时由调用方按新的 size() 重新派生，同一索引不会被追加两次
+     */
+    public synchronized boolean appendIfNext(Account account) throws IOException {
+        if (account.index != count) {
+            return false;
+        }
+        append(account);
+        return true;
+    }
+
+    /**
+     * 批量追加，账户索引必须从当前账户数开始连续
+     */
+    public synchronized void appendAll(List<Account> accounts) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(accounts.size() * RECORD_SIZE);
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            if (account.index != count + i) {
+                throw new IllegalArgumentException("Account index " + account.index
+                        + " does not match position " + (count + i));
+            }
+            records.put(encode(account));
+        }
+        records.flip();
+        writeFully(records, HEADER_SIZE + (long) count * RECORD_SIZE);
+        count += accounts.size();
+    }
+
+    /**
+     * 读取位置 position 的账户
+     */
+    public synchronized Account get(int position) throws IOException {
+        List<Account> accounts = load(position, 1);
+        if (accounts.isEmpty()) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + count);
+        }
+        return accounts.get(0);
+    }
+
+    /**
+     * 分页读取 [offset, offset + limit) 的账户
+     */
+    public synchronized List<Account> load(int offset, int limit) throws IOException {
+        int end = Math.min(count, offset + limit);
+        if (offset < 0 || offset >= end) {
+            return new ArrayList<>();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((end - offset) * RECORD_SIZE);
+        long position = HEADER_SIZE + (long) offset * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of account store");
+            }
+        }
+        buffer.flip();
+        List<Account> accounts = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            accounts.add(decode(buffer));
+        }
+        return accounts;
+    }
+
+    /**
+     * 清空所有账户（创建或恢复新钱包时）
+     */
+    public synchronized void clear() throws IOException {
+        channel.truncate(HEADER_SIZE);
+        count = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        channel.truncate(0);
+        writeFully(header, 0);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer encode(Account account) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(account.index);
+        byte[] address = Numeric.hexStringToByteArray(account.address);
+        if (address.length != ADDRESS_SIZE) {
+            throw new IllegalArgumentException("Invalid address: " + account.address);
+        }
+        record.put(address);
+        int depth = account.path == null ? 0 : account.path.length;
+        if (depth > MAX_PATH_DEPTH) {
+            throw new IllegalArgumentException("Derivation path too deep: " + depth);
+        }
+        record.put((byte) depth);
+        for (int i = 0; i < MAX_PATH_DEPTH; i++) {
+            record.putInt(i < depth ? account.path[i] : 0);
+        }
+        byte[] label = account.label == null ? new byte[0] : account.label.getBytes(StandardCharsets.UTF_8);
+        int labelLength = utf8Prefix(label, MAX_LABEL_BYTES);
+        record.put((byte) labelLength);
+        record.put(label, 0, labelLength);
+        record.position(RECORD_SIZE);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * 不超过 maxBytes 的最长前缀长度，截断点退到字符边界，不拆开多字节字符（中文每字 3 字节）
+     */
+    static int utf8Prefix(byte[] utf8, int maxBytes) {
+        if (utf8.length <= maxBytes) {
+            return utf8.length;
+        }
+        int length = maxBytes;
+        // 截断点上的字节是后续字节 10xxxxxx 时，说明它所属的字符跨过了截断点
+        while (length > 0 && (utf8[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    private static Account decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        int index = buffer.getInt();
+        byte[] address = new byte[ADDRESS_SIZE];
+        buffer.get(address);
+        int depth = buffer.get();
+        int[] path = new int[depth];
+        for (int i = 0; i < MAX_PATH_DEPTH; i++) {
+            int element = buffer.getInt();
+            if (i < depth) {
+                path[i] = element;
+            }
+        }
+        int labelLength = buffer.get() & 0xff;
+        byte[] label = new byte[labelLength];
+        buffer.get(label);
+        buffer.position(start + RECORD_SIZE);
+        return new Account(index, Numeric.toHexStringNoPrefix(address), path,
+                labelLength == 0 ? null : new String(label, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 单个派生账户
+     */
+    public static class Account {
+        public final int index;
+        // 不带0x前缀的小写地址
+        public final String address;
+        // 派生路径，硬化层级带 0x80000000 标志位
+        public final int[] path;
+        public final String label;
+
+        public Account(int index, String address, int[] path, String label) {
+            this.index = index;
+            this.address = Numeric.cleanHexPrefix(address).toLowerCase();
+            this.path = path;
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return "Account{" + index + ", " + address + ", " + Arrays.toString(path) + "}";
+        }
+    }
+}
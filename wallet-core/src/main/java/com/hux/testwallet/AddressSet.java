@@ -0,0 +1,261 @@
+package com.hux.testwallet;
+
+import java.util.Arrays;
+
+/**
+ * 20 字节地址集合
+ * 地址按插入顺序以 3 个 long 存放在基本类型数组中（8 + 8 + 4 字节），不创建 String/byte[] 对象；
+ * 查找前先过布隆过滤器，绝大多数不属于本钱包的地址只需读几个 long 即可排除，
+ * 命中后再查开放寻址哈希表确认。contains/indexOf 不分配内存
+ * 非线程安全：构建完成后可以在多个线程中只读使用
+ */
+public final class AddressSet {
+
+    private static final int ADDRESS_SIZE = 20;
+    private static final int LONGS_PER_ADDRESS = 3;
+    // 每个地址至少占用的布隆过滤器位数和哈希函数个数，误判率不超过约 1%
+    private static final int BLOOM_BITS_PER_ADDRESS = 10;
+    private static final int BLOOM_HASHES = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 按插入顺序存放的地址，下标即序号
+    private long[] entries;
+    // 哈希表，存放 序号 + 1，0 表示空
+    private int[] slots;
+    private long[] bloom;
+    private int size;
+    private int capacity;
+
+    public AddressSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AddressSet(int expectedSize) {
+        allocate(Math.max(DEFAULT_CAPACITY, expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 添加十六进制地址（可带 0x 前缀），返回地址的序号；已存在时返回原序号
+     */
+    public int add(CharSequence address) {
+        int start = hexStart(address);
+        if (start < 0) {
+            throw new IllegalArgumentException("Invalid address: " + address);
+        }
+        return add(hexLong(address, start, 16), hexLong(address, start + 16, 16),
+                hexLong(address, start + 32, 8));
+    }
+
+    /**
+     * 添加 bytes[offset, offset + 20) 处的地址，返回地址的序号
+     */
+    public int add(byte[] bytes, int offset) {
+        return add(readLong(bytes, offset, 8), readLong(bytes, offset + 8, 8), readLong(bytes, offset + 16, 4));
+    }
+
+    public boolean contains(CharSequence address) {
+        return indexOf(address) >= 0;
+    }
+
+    public boolean contains(byte[] bytes, int offset) {
+        return indexOf(bytes, offset) >= 0;
+    }
+
+    /**
+     * 地址的序号（添加顺序），不存在或格式错误时返回 -1
+     */
+    public int indexOf(CharSequence address) {
+        int start = hexStart(address);
+        if (start < 0) {
+            return -1;
+        }
+        return indexOf(hexLong(address, start, 16), hexLong(address, start + 16, 16),
+                hexLong(address, start + 32, 8));
+    }
+
+    public int indexOf(byte[] bytes, int offset) {
+        return indexOf(readLong(bytes, offset, 8), readLong(bytes, offset + 8, 8), readLong(bytes, offset + 16, 4));
+    }
+
+    /**
+     * 只查布隆过滤器：返回 false 时地址一定不在集合中
+     */
+    public boolean mightContain(byte[] bytes, int offset) {
+        return mightContain(readLong(bytes, offset, 8), readLong(bytes, offset + 8, 8),
+                readLong(bytes, offset + 16, 4));
+    }
+
+    /**
+     * 序号对应的地址，小写、不带 0x
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int base = index * LONGS_PER_ADDRESS;
+        StringBuilder builder = new StringBuilder(ADDRESS_SIZE * 2);
+        appendHex(builder, entries[base], 16);
+        appendHex(builder, entries[base + 1], 16);
+        appendHex(builder, entries[base + 2], 8);
+        return builder.toString();
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(slots, 0);
+        Arrays.fill(bloom, 0L);
+    }
+
+    private int add(long a, long b, long c) {
+        int existing = indexOf(a, b, c);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (size == capacity) {
+            grow();
+        }
+        int index = size++;
+        int base = index * LONGS_PER_ADDRESS;
+        entries[base] = a;
+        entries[base + 1] = b;
+        entries[base + 2] = c;
+        insert(index, a, b, c);
+        return index;
+    }
+
+    private int indexOf(long a, long b, long c) {
+        if (!mightContain(a, b, c)) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        int slot = (int) hash(a, b, c) & mask;
+        while (true) {
+            int value = slots[slot];
+            if (value == 0) {
+                return -1;
+            }
+            int base = (value - 1) * LONGS_PER_ADDRESS;
+            if (entries[base] == a && entries[base + 1] == b && entries[base + 2] == c) {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean mightContain(long a, long b, long c) {
+        long h1 = mix(a + c);
+        long h2 = mix(b) | 1;
+        long mask = ((long) bloom.length << 6) - 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int index, long a, long b, long c) {
+        int mask = slots.length - 1;
+        int slot = (int) hash(a, b, c) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+
+        long h1 = mix(a + c);
+        long h2 = mix(b) | 1;
+        long bloomMask = ((long) bloom.length << 6) - 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (h1 + i * h2) & bloomMask;
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        long[] newEntries = new long[newCapacity * LONGS_PER_ADDRESS];
+        if (entries != null) {
+            System.arraycopy(entries, 0, newEntries, 0, size * LONGS_PER_ADDRESS);
+        }
+        entries = newEntries;
+        // 负载因子不超过 0.5，位数组长度取 2 的幂便于取模
+        slots = new int[Integer.highestOneBit(newCapacity * 2 - 1) << 1];
+        int bloomLongs = Integer.highestOneBit(Math.max(1, newCapacity * BLOOM_BITS_PER_ADDRESS / 64 - 1)) << 1;
+        bloom = new long[bloomLongs];
+    }
+
+    private void grow() {
+        allocate(capacity * 2);
+        for (int index = 0; index < size; index++) {
+            int base = index * LONGS_PER_ADDRESS;
+            insert(index, entries[base], entries[base + 1], entries[base + 2]);
+        }
+    }
+
+    private static long hash(long a, long b, long c) {
+        return mix(a ^ (b * 0x9E3779B97F4A7C15L) ^ c);
+    }
+
+    /**
+     * MurmurHash3 的 64 位终结函数，测试用的规律地址也能均匀分布
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 40 位十六进制地址的起始位置，格式错误时返回 -1
+     */
+    private static int hexStart(CharSequence address) {
+        if (address == null) {
+            return -1;
+        }
+        int start = address.length() == ADDRESS_SIZE * 2 + 2
+                && address.charAt(0) == '0' && (address.charAt(1) == 'x' || address.charAt(1) == 'X') ? 2 : 0;
+        if (address.length() - start != ADDRESS_SIZE * 2) {
+            return -1;
+        }
+        for (int i = start; i < address.length(); i++) {
+            if (Character.digit(address.charAt(i), 16) < 0) {
+                return -1;
+            }
+        }
+        return start;
+    }
+
+    private static long hexLong(CharSequence hex, int start, int length) {
+        long value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = (value << 4) | Character.digit(hex.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static long readLong(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void appendHex(StringBuilder builder, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            builder.append(Character.forDigit((int) (value >>> shift) & 0xf, 16));
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * 余额缓存（stale-while-revalidate）
+ * 按 (链, 地址) 缓存余额及其所在区块，先立即返回缓存值，再在后台用 eth_blockNumber 校验；
+ * 只有区块高度前进时才重新查询余额，缓存按 LRU 淘汰
+ */
+public class BalanceCache {
+
+    private static final String TAG = "BalanceCache";
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final Map<String, BalanceCache> instances = new HashMap<>();
+
+    private final String chain;
+    private final JsonRpcBatchClient batchClient;
+    private final BalanceService balanceService;
+    private final String revalidateKey;
+
+    // 受 this 保护
+    private final Map<String, Entry> entries;
+    private final Set<String> pendingAddresses = new LinkedHashSet<>();
+    private final List<Listener> pendingListeners = new ArrayList<>();
+
+    private volatile long latestBlock = -1;
+
+    public BalanceCache(String chain, JsonRpcBatchClient batchClient, final int maxEntries) {
+        this.chain = chain;
+        this.batchClient = batchClient;
+        this.balanceService = new BalanceService(batchClient);
+        this.revalidateKey = "balance-revalidate@" + chain;
+        this.entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取指定网络的进程级缓存
+     */
+    public static BalanceCache getInstance(String endpoint) {
+        synchronized (instances) {
+            BalanceCache cache = instances.get(endpoint);
+            if (cache == null) {
+                JsonRpcBatchClient client = new JsonRpcBatchClient(
+                        RpcHttpClient.getInstance().getHttpClient(), endpoint);
+                cache = new BalanceCache(endpoint, client, DEFAULT_MAX_ENTRIES);
+                instances.put(endpoint, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * 已缓存的余额，key 为调用方传入的地址
+     */
+    public synchronized Map<String, BigInteger> getCached(List<String> addresses) {
+        Map<String, BigInteger> result = new HashMap<>();
+        for (String address : addresses) {
+            Entry entry = entries.get(key(address));
+            if (entry != null) {
+                result.put(address, entry.balance);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 有缓存时立即在调用线程回调缓存值（fresh=false），再在后台校验区块高度，
+     * 区块前进或缓存缺失时批量查询并回调最新值（fresh=true）
+     * 并发的刷新请求在 IO 池中按 key 合并为一次校验
+     */
+    public void refresh(List<String> addresses, Listener listener) {
+        Map<String, BigInteger> cached = getCached(addresses);
+        if (!cached.isEmpty()) {
+            listener.onBalances(cached, latestBlock, false);
+        }
+        synchronized (this) {
+            pendingAddresses.addAll(addresses);
+            pendingListeners.add(listener);
+        }
+        scheduleRevalidate();
+    }
+
+    /**
+     * 清空缓存（如切换账户体系时）
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 合并到正在执行的校验时，请求可能在其取走待处理列表之后才加入，
+     * 所以任务结束后若仍有待处理请求就再提交一次
+     */
+    private void scheduleRevalidate() {
+        CompletableFuture<Void> future = WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, this,
+                revalidateKey, new Runnable() {
+                    @Override
+                    public void run() {
+                        revalidate();
+                    }
+                });
+        future.whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void ignored, Throwable error) {
+                if (error != null) {
+                    // 队列已满或被取消，不再重试，通知等待的监听者
+                    failPending(new IOException("Revalidate balances not run", error));
+                } else if (hasPending()) {
+                    scheduleRevalidate();
+                }
+            }
+        });
+    }
+
+    private synchronized boolean hasPending() {
+        return !pendingListeners.isEmpty();
+    }
+
+    private void failPending(IOException e) {
+        List<Listener> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(pendingListeners);
+            pendingAddresses.clear();
+            pendingListeners.clear();
+        }
+        for (Listener listener : listeners) {
+            listener.onFailure(e);
+        }
+    }
+
+    private void revalidate() {
+        List<String> addresses;
+        List<Listener> listeners;
+        synchronized (this) {
+            addresses = new ArrayList<>(pendingAddresses);
+            listeners = new ArrayList<>(pendingListeners);
+            pendingAddresses.clear();
+            pendingListeners.clear();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long blockNumber;
+        try {
+            blockNumber = fetchBlockNumber();
+            latestBlock = blockNumber;
+
+            List<String> stale = new ArrayList<>();
+            synchronized (this) {
+                for (String address : addresses) {
+                    Entry entry = entries.get(key(address));
+                    if (entry == null || entry.blockNumber < blockNumber) {
+                        stale.add(address);
+                    }
+                }
+            }
+
+            if (!stale.isEmpty()) {
+                // 在同一区块上查询，保证结果与区块高度一致
+                BigInteger[] balances = balanceService.getBalances(stale, Numeric.encodeQuantity(BigInteger.valueOf(blockNumber)));
+                synchronized (this) {
+                    for (int i = 0; i < balances.length; i++) {
+                        if (balances[i] != null) {
+                            entries.put(key(stale.get(i)), new Entry(balances[i], blockNumber));
+                        }
+                    }
+                }
+                WalletLog.d(TAG, "{} revalidated {} balances at block {}", chain, stale.size(), blockNumber);
+            }
+        } catch (IOException | RuntimeException e) {
+            // 节点返回格式错误时 Numeric 等会抛 RuntimeException，同样要通知监听者
+            IOException failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            WalletLog.e(TAG, "Revalidate balances failed", failure);
+            for (Listener listener : listeners) {
+                listener.onFailure(failure);
+            }
+            return;
+        }
+
+        Map<String, BigInteger> result = Collections.unmodifiableMap(getCached(addresses));
+        for (Listener listener : listeners) {
+            listener.onBalances(result, blockNumber, true);
+        }
+    }
+
+    private long fetchBlockNumber() throws IOException {
+        String[] result = batchClient.sendForStrings(
+                Collections.singletonList(new JsonRpcBatchClient.Request("eth_blockNumber")));
+        if (result[0] == null) {
+            throw new IOException("eth_blockNumber failed");
+        }
+        return Numeric.decodeQuantity(result[0]).longValue();
+    }
+
+    private static String key(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+
+    private static class Entry {
+        final BigInteger balance;
+        final long blockNumber;
+
+        Entry(BigInteger balance, long blockNumber) {
+            this.balance = balance;
+            this.blockNumber = blockNumber;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * @param balances    key 为调用方传入的地址，可能包含合并请求中的其他地址
+         * @param blockNumber 余额所在区块，未知时为 -1
+         * @param fresh       false 表示是校验前的缓存值
+         */
+        void onBalances(Map<String, BigInteger> balances, long blockNumber, boolean fresh);
+
+        void onFailure(IOException e);
+    }
+}
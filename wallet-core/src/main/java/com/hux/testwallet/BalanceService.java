@@ -0,0 +1,65 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 余额查询服务
+ * 多个地址的 eth_getBalance 打包成一次 JSON-RPC 批量请求，地址很多时自动分片并发发送
+ */
+public class BalanceService {
+
+    private final JsonRpcBatchClient batchClient;
+
+    public BalanceService(OkHttpClient httpClient, String url) {
+        this(new JsonRpcBatchClient(httpClient, url));
+    }
+
+    public BalanceService(JsonRpcBatchClient batchClient) {
+        this.batchClient = batchClient;
+    }
+
+    /**
+     * 批量查询最新区块上的余额（wei），结果与 addresses 顺序一致，单个地址查询失败时为 null
+     */
+    public BigInteger[] getBalances(List<String> addresses) throws IOException {
+        return getBalances(addresses, "latest");
+    }
+
+    /**
+     * 批量查询指定区块（十六进制区块号或 latest/pending 等标签）上的余额（wei）
+     */
+    public BigInteger[] getBalances(List<String> addresses, String blockParameter) throws IOException {
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            requests.add(new JsonRpcBatchClient.Request("eth_getBalance",
+                    Numeric.prependHexPrefix(address), blockParameter));
+        }
+        String[] results = batchClient.sendForStrings(requests);
+        BigInteger[] balances = new BigInteger[results.length];
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                balances[i] = Numeric.decodeQuantity(results[i]);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * 查询单个地址的余额（wei）
+     */
+    public BigInteger getBalance(String address) throws IOException {
+        BigInteger balance = getBalances(Collections.singletonList(address))[0];
+        if (balance == null) {
+            throw new IOException("eth_getBalance failed: " + address);
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hux.testwallet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * 最近一次查询到的余额快照
+ * 与 AccountStore 按位置一一对应的定长槽位：是否有值(1) + 区块高度(8) + 余额(32)；
+ * 冷启动时直接读出上次的余额先行显示，不等待网络请求
+ */
+public class BalanceSnapshotStore implements Closeable {
+
+    private static final int MAGIC = 0x42414c53; // "BALS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final int BALANCE_SIZE = 32;
+    static final int SLOT_SIZE = 1 + 8 + BALANCE_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    public BalanceSnapshotStore(File storeFile) throws IOException {
+        file = new RandomAccessFile(storeFile, "rw");
+        channel = file.getChannel();
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                // 快照只是缓存，格式不符时直接重建
+                writeHeader();
+            }
+        }
+    }
+
+    /**
+     * 读取 [offset, offset + limit) 的余额，没有快照的位置为 null
+     */
+    public synchronized Snapshot[] load(int offset, int limit) throws IOException {
+        Snapshot[] snapshots = new Snapshot[limit];
+        long position = HEADER_SIZE + (long) offset * SLOT_SIZE;
+        long available = channel.size() - position;
+        int slots = (int) Math.min(limit, Math.max(0, available / SLOT_SIZE));
+        if (slots == 0) {
+            return snapshots;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(slots * SLOT_SIZE);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        byte[] balance = new byte[BALANCE_SIZE];
+        for (int i = 0; i < slots && buffer.remaining() >= SLOT_SIZE; i++) {
+            boolean present = buffer.get() != 0;
+            long blockNumber = buffer.getLong();
+            buffer.get(balance);
+            if (present) {
+                snapshots[i] = new Snapshot(new BigInteger(1, balance), blockNumber);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 从 offset 开始连续写入一段余额，一次定位写
+     *  @param balances 与账户位置对应的余额，null 表示该位置不更新为有值
+     */
+    public synchronized void save(int offset, List<BigInteger> balances, long blockNumber) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(balances.size() * SLOT_SIZE);
+        for (BigInteger balance : balances) {
+            buffer.put((byte) (balance == null ? 0 : 1));
+            buffer.putLong(blockNumber);
+            putUint256(buffer, balance == null ? BigInteger.ZERO : balance);
+        }
+        buffer.flip();
+        long position = HEADER_SIZE + (long) offset * SLOT_SIZE;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 清空快照（创建或恢复新钱包时）
+     */
+    public synchronized void clear() throws IOException {
+        channel.truncate(HEADER_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+    }
+
+    private static void putUint256(ByteBuffer buffer, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int start = bytes.length > BALANCE_SIZE ? bytes.length - BALANCE_SIZE : 0;
+        int length = bytes.length - start;
+        for (int i = length; i < BALANCE_SIZE; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.put(bytes, start, length);
+    }
+
+    /**
+     * 单个账户的余额快照
+     */
+    public static class Snapshot {
+        public final BigInteger balance;
+        public final long blockNumber;
+
+        Snapshot(BigInteger balance, long blockNumber) {
+            this.balance = balance;
+            this.blockNumber = blockNumber;
+        }
+    }
+}
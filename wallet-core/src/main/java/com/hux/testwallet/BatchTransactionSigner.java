@@ -0,0 +1,252 @@
+package com.hux.testwallet;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量转账签名
+ * 一次解锁的私钥为多笔转账分配连续 nonce，在 CPU 线程池中并行签名后逐条输出原始交易，
+ * 可选地在 IO 线程池中以有限并发广播，并统计签名和广播的吞吐量（笔/秒）
+ * 调用线程也参与签名和广播，线程池繁忙时不会因等待排队任务而卡住
+ */
+public class BatchTransactionSigner {
+
+    private static final String TAG = "BatchTransactionSigner";
+
+    // 普通转账的 gasLimit
+    private static final BigInteger TRANSFER_GAS_LIMIT = BigInteger.valueOf(21000);
+
+    // 每个签名任务处理的交易数
+    private static final int SIGN_CHUNK_SIZE = 8;
+
+    private final TransactionPipeline pipeline;
+
+    public BatchTransactionSigner(TransactionPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 只签名不广播，用于预览和估算；签名后归还预留的 nonce，返回的原始交易不应再广播
+     */
+    public BatchResult sign(Credentials credentials, List<Payout> payouts, SignedTransactionSink sink) throws IOException {
+        return signAndSend(credentials, payouts, 0, sink);
+    }
+
+    /**
+     * 签名并广播
+     *
+     * @param broadcastConcurrency 同时在途的广播请求数（受 IO 线程池大小限制），<=0 表示只签名不广播
+     * @param sink                 每笔交易签名完成后回调，可能来自多个线程，可为 null
+     */
+    public BatchResult signAndSend(final Credentials credentials, final List<Payout> payouts,
+                                   int broadcastConcurrency, final SignedTransactionSink sink) throws IOException {
+        final int count = payouts.size();
+        final BatchResult result = new BatchResult(count);
+        if (count == 0) {
+            return result;
+        }
+        String from = credentials.getAddress();
+        final TransactionPipeline.Reservation reservation = pipeline.reserve(from, count);
+
+        long signStart = System.nanoTime();
+        try {
+            final int chunks = (count + SIGN_CHUNK_SIZE - 1) / SIGN_CHUNK_SIZE;
+            runParallel(WalletExecutors.getInstance().cpuExecutor(), Runtime.getRuntime().availableProcessors(),
+                    chunks, new IndexedTask() {
+                        @Override
+                        public void run(int chunk) {
+                            int end = Math.min(count, (chunk + 1) * SIGN_CHUNK_SIZE);
+                            for (int i = chunk * SIGN_CHUNK_SIZE; i < end; i++) {
+                                sign(credentials, payouts.get(i), reservation, i, result, sink);
+                            }
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            // 签名未完成，预留的 nonce 没有用到
+            pipeline.release(from, reservation, count);
+            throw e;
+        }
+        result.signNanos = System.nanoTime() - signStart;
+        WalletLog.d(TAG, "Signed {} transactions, {} tx/s", count, result.getSignedPerSecond());
+
+        if (broadcastConcurrency <= 0) {
+            pipeline.release(from, reservation, count);
+            return result;
+        }
+        long broadcastStart = System.nanoTime();
+        boolean completed = false;
+        try {
+            broadcast(result, broadcastConcurrency);
+            completed = true;
+        } finally {
+            result.broadcastNanos = System.nanoTime() - broadcastStart;
+            if (!completed || result.failedCount > 0) {
+                // 中间有交易未广播成功，后续 nonce 会卡住，重新从链上同步
+                pipeline.resetNonce(from);
+            }
+        }
+        WalletLog.d(TAG, "Broadcast {} transactions, {} tx/s, failed {}",
+                count, result.getBroadcastPerSecond(), result.failedCount);
+        return result;
+    }
+
+    private void broadcast(final BatchResult result, int concurrency) throws IOException {
+        runParallel(WalletExecutors.getInstance().ioExecutor(), concurrency, result.rawTransactions.length,
+                new IndexedTask() {
+                    @Override
+                    public void run(int index) {
+                        try {
+                            result.transactionHashes[index] = pipeline.sendRawTransaction(result.rawTransactions[index]);
+                        } catch (IOException e) {
+                            result.errors[index] = e;
+                            synchronized (result) {
+                                result.failedCount++;
+                            }
+                        }
+                    }
+                });
+    }
+
+    private static void sign(Credentials credentials, Payout payout, TransactionPipeline.Reservation reservation,
+                             int index, BatchResult result, SignedTransactionSink sink) {
+        BigInteger nonce = reservation.firstNonce.add(BigInteger.valueOf(index));
+        RawTransaction rawTransaction = RawTransaction.createTransaction(reservation.chainId, nonce,
+                payout.gasLimit, payout.to, payout.value, payout.data,
+                reservation.fees.maxPriorityFeePerGas, reservation.fees.maxFeePerGas);
+        String hexValue = Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, credentials));
+        result.rawTransactions[index] = hexValue;
+        if (sink != null) {
+            sink.onSigned(index, nonce, hexValue);
+        }
+    }
+
+    /**
+     * 以至多 parallelism 个线程执行 task(0) ~ task(count - 1)，调用线程也领取任务
+     * 任务按下标从共享计数器领取，还没开始执行的辅助任务领不到下标时直接结束，
+     * 调用线程只等待已领取的任务，不依赖线程池中的空闲线程
+     */
+    private static void runParallel(Executor executor, int parallelism, final int count, final IndexedTask task)
+            throws IOException {
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < count) {
+                    try {
+                        if (failure.get() == null) {
+                            task.run(index);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        int helpers = Math.min(parallelism, count) - 1;
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private interface IndexedTask {
+        void run(int index);
+    }
+
+    /**
+     * 单笔转账 (to, value, data)
+     */
+    public static class Payout {
+        final String to;
+        final BigInteger value;
+        final String data;
+        final BigInteger gasLimit;
+
+        /**
+         * 普通 ETH 转账
+         */
+        public Payout(String to, BigInteger value) {
+            this(to, value, "", TRANSFER_GAS_LIMIT);
+        }
+
+        public Payout(String to, BigInteger value, String data, BigInteger gasLimit) {
+            this.to = to;
+            this.value = value;
+            this.data = data == null ? "" : data;
+            this.gasLimit = gasLimit;
+        }
+    }
+
+    /**
+     * 批量结果，下标与输入顺序一致
+     */
+    public static class BatchResult {
+        final String[] rawTransactions;
+        final String[] transactionHashes;
+        final IOException[] errors;
+        long signNanos;
+        long broadcastNanos;
+        int failedCount;
+
+        BatchResult(int count) {
+            rawTransactions = new String[count];
+            transactionHashes = new String[count];
+            errors = new IOException[count];
+        }
+
+        public String getRawTransaction(int index) {
+            return rawTransactions[index];
+        }
+
+        /**
+         * 交易哈希，未广播或广播失败时为 null
+         */
+        public String getTransactionHash(int index) {
+            return transactionHashes[index];
+        }
+
+        public IOException getError(int index) {
+            return errors[index];
+        }
+
+        public int getFailedCount() {
+            return failedCount;
+        }
+
+        public double getSignedPerSecond() {
+            return signNanos == 0 ? 0 : rawTransactions.length * 1e9 / signNanos;
+        }
+
+        public double getBroadcastPerSecond() {
+            return broadcastNanos == 0 ? 0 : rawTransactions.length * 1e9 / broadcastNanos;
+        }
+    }
+
+    public interface SignedTransactionSink {
+        void onSigned(int index, BigInteger nonce, String rawTransaction);
+    }
+}
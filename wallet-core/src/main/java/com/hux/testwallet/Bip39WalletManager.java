@@ -0,0 +1,292 @@
+package com.hux.testwallet;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.MnemonicCode;
+import org.bitcoinj.crypto.MnemonicException;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于BIP39的HD钱包管理器（修正版）
+ */
+public class Bip39WalletManager {
+    private static final String TAG = "Bip39WalletManager";
+
+    private static Bip39WalletManager instance;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    // 已解锁的派生上下文，按助记词指纹索引
+    private final Map<String, HDDerivationContext> derivationContexts = new HashMap<>();
+
+    public static Bip39WalletManager getInstance() {
+        if (instance == null) {
+            synchronized (Bip39WalletManager.class) {
+                if (instance == null) {
+                    instance = new Bip39WalletManager();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 生成新的BIP39助记词
+     */
+    public List<String> generateMnemonic() {
+        try {
+            SecureRandom secureRandom = new SecureRandom();
+            byte[] entropy = new byte[16]; // 128位，生成12个单词
+            secureRandom.nextBytes(entropy);
+
+            List<String> mnemonics = MnemonicCode.INSTANCE.toMnemonic(entropy);
+            Arrays.fill(entropy, (byte) 0);
+            return mnemonics;
+        } catch (MnemonicException.MnemonicLengthException e) {
+            WalletLog.e(TAG, "Generate mnemonic failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 从助记词创建HD钱包
+     */
+    public WalletFile createWalletFromMnemonic(List<String> mnemonics, String password) {
+        try {
+            // 1. 验证助记词
+            MnemonicCode.INSTANCE.check(mnemonics);
+
+            // 2. 获取派生上下文（种子和 m/44'/60'/0'/0 节点只计算一次）
+            HDDerivationContext context = getDerivationContext(mnemonics);
+
+            // 3. 派生 m/44'/60'/0'/0/0 并创建ECKeyPair
+            ECKeyPair ecKeyPair = context.deriveKeyPair(0);
+
+            // 4. 创建钱包文件
+            WalletFile walletFile = Wallet.createLight(password, ecKeyPair);
+
+            WalletLog.d(TAG, "Wallet created from mnemonic, address: {}", walletFile.getAddress());
+            return walletFile;
+
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Create wallet from mnemonic failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 根据BIP44路径逐层派生子密钥，字符串路径经 DerivationPath 解析缓存，不再每次拆分解析
+     */
+    DeterministicKey deriveChildKeyFromPath(DeterministicKey parentKey, String path) {
+        return deriveChildKeyFromPath(parentKey, DerivationPath.parse(path));
+    }
+
+    DeterministicKey deriveChildKeyFromPath(DeterministicKey parentKey, DerivationPath path) {
+        DeterministicKey currentKey = parentKey;
+        for (int i = 0; i < path.size(); i++) {
+            currentKey = HDKeyDerivation.deriveChildKey(currentKey, new ChildNumber(path.get(i)));
+        }
+        return currentKey;
+    }
+
+    /**
+     * 账户 accountIndex 的派生路径 m/44'/60'/0'/0/{index}，硬化层级带 0x80000000 标志位
+     */
+    public static int[] accountPath(int accountIndex) {
+        return DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 0, accountIndex).toArray();
+    }
+
+    /**
+     * 获取助记词对应的派生上下文，首次调用时计算种子和 m/44'/60'/0'/0 节点
+     */
+    public HDDerivationContext getDerivationContext(List<String> mnemonics) {
+        String fingerprint = Sha256Hash.of(String.join(" ", mnemonics)
+                .getBytes(StandardCharsets.UTF_8)).toString();
+        synchronized (derivationContexts) {
+            HDDerivationContext context = derivationContexts.get(fingerprint);
+            if (context == null || context.isLocked()) {
+                byte[] seed = MnemonicCode.toSeed(mnemonics, "");
+                DeterministicKey masterKey = HDKeyDerivation.createMasterPrivateKey(seed);
+                context = new HDDerivationContext(seed, masterKey);
+                derivationContexts.put(fingerprint, context);
+            }
+            return context;
+        }
+    }
+
+    /**
+     * 锁定钱包，清除所有缓存的种子和父节点
+     */
+    public void lock() {
+        synchronized (derivationContexts) {
+            for (HDDerivationContext context : derivationContexts.values()) {
+                context.wipe();
+            }
+            derivationContexts.clear();
+        }
+    }
+
+    /**
+     * 从同一个助记词派生多个地址
+     */
+    public WalletFile deriveNewAddress(List<String> mnemonics, String password, int accountIndex) {
+        try {
+            // 派生新路径: m/44'/60'/0'/0/{index}，父节点来自缓存的上下文
+            ECKeyPair ecKeyPair = getDerivationContext(mnemonics).deriveKeyPair(accountIndex);
+
+            // 创建钱包
+            WalletFile walletFile = Wallet.createLight(password, ecKeyPair);
+
+            WalletLog.d(TAG, "Derived new address at index {}: {}", accountIndex, walletFile.getAddress());
+            return walletFile;
+
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive new address failed at index: {}", accountIndex, e);
+            return null;
+        }
+    }
+
+    /**
+     * 只派生地址（不带0x前缀），走公钥链，不执行 scrypt，用于地址列表展示
+     * 需要导出或签名时再调用 deriveNewAddress 生成 KeyStore
+     */
+    public String deriveAddress(List<String> mnemonics, int accountIndex) {
+        try {
+            return getDerivationContext(mnemonics).deriveAddress(accountIndex);
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive address failed at index: {}", accountIndex, e);
+            return null;
+        }
+    }
+
+    /**
+     * 派生任意路径的地址（不带0x前缀），用于其他账户、其他 EVM 币种或 Ledger Live 风格的路径
+     */
+    public String deriveAddress(List<String> mnemonics, DerivationPath path) {
+        try {
+            return getDerivationContext(mnemonics).deriveAddress(path);
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive address failed at path: {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 派生任意路径并生成 KeyStore
+     */
+    public WalletFile deriveNewAddress(List<String> mnemonics, String password, DerivationPath path) {
+        try {
+            ECKeyPair ecKeyPair = getDerivationContext(mnemonics).deriveKeyPair(path);
+            WalletFile walletFile = Wallet.createLight(password, ecKeyPair);
+            WalletLog.d(TAG, "Derived new address at {}: {}", path, walletFile.getAddress());
+            return walletFile;
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive new address failed at path: {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 只派生带校验和的地址（EIP-55，带0x前缀）
+     */
+    public String deriveChecksumAddress(List<String> mnemonics, int accountIndex) {
+        String address = deriveAddress(mnemonics, accountIndex);
+        return address == null ? null : Keys.toChecksumAddress(address);
+    }
+
+    /**
+     * 导出 m/44'/60'/0'/0 的扩展公钥（xpub），交给只读端用 WatchOnlyAddressDeriver 派生收款地址
+     */
+    public String exportAccountXpub(List<String> mnemonics) {
+        try {
+            return getDerivationContext(mnemonics).serializeChainXpub();
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Export account xpub failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量派生 [fromIndex, toIndex) 的地址（不带0x前缀），按索引顺序返回
+     * 区间拆分到多个核心并行计算，不生成 KeyStore
+     */
+    public List<String> deriveAddresses(List<String> mnemonics, int fromIndex, int toIndex) {
+        try {
+            List<String> addresses = getDerivationContext(mnemonics).deriveAddresses(fromIndex, toIndex);
+            WalletLog.d(TAG, "Derived {} addresses in [{}, {})", addresses.size(), fromIndex, toIndex);
+            return addresses;
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive addresses failed: [{}, {})", fromIndex, toIndex, e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量派生 [fromIndex, toIndex) 的密钥对，按索引顺序返回
+     */
+    public List<ECKeyPair> deriveKeyPairs(List<String> mnemonics, int fromIndex, int toIndex) {
+        try {
+            return getDerivationContext(mnemonics).deriveKeyPairs(fromIndex, toIndex);
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Derive key pairs failed: [{}, {})", fromIndex, toIndex, e);
+            return null;
+        }
+    }
+
+    /**
+     * 从助记词恢复钱包
+     */
+    public WalletFile recoverWallet(String mnemonicPhrase, String password) {
+        try {
+            String[] words = mnemonicPhrase.split(" ");
+            List<String> mnemonics = new ArrayList<>();
+            for (String word : words) {
+                mnemonics.add(word.trim());
+            }
+            return createWalletFromMnemonic(mnemonics, password);
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Recover wallet failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 验证助记词有效性
+     */
+    public boolean validateMnemonic(List<String> mnemonics) {
+        try {
+            MnemonicCode.INSTANCE.check(mnemonics);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 直接从助记词获取私钥（用于调试）
+     */
+    public String getPrivateKeyFromMnemonic(List<String> mnemonics) {
+        try {
+            ECKeyPair ecKeyPair = getDerivationContext(mnemonics).deriveKeyPair(0);
+            return "0x" + ecKeyPair.getPrivateKey().toString(16);
+
+        } catch (Exception e) {
+            WalletLog.e(TAG, "Get private key from mnemonic failed", e);
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,604 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * 新区块订阅
+ * 优先通过 WebSocket 订阅 newHeads 和本钱包地址相关的 Transfer 日志；连接失败或断开时退回 HTTP 轮询
+ * eth_blockNumber，轮询间隔随出块情况自适应，同时按指数退避重连 WebSocket，连上后停止轮询
+ * 每个新区块读取完整交易，用 AddressSet 匹配 from/to，把涉及的地址推送给监听者；区块扫描成功后才推进进度，
+ * 失败的区间在下一个新区块时重新扫描
+ * 所有状态只在内部的串行队列中修改，监听者也在该队列中回调；定时使用共享调度器，RPC 请求在 IO 池中执行，
+ * 不会阻塞 WebSocket 消息的处理
+ */
+public class BlockSubscriber {
+
+    private static final String TAG = "BlockSubscriber";
+
+    private static final long MIN_POLL_INTERVAL = 4_000L;
+    private static final long MAX_POLL_INTERVAL = 30_000L;
+    private static final long MIN_RECONNECT_DELAY = 1_000L;
+    private static final long MAX_RECONNECT_DELAY = 60_000L;
+
+    // 地址较多时不再订阅按地址过滤的日志，改为每个区块查询全部 Transfer 日志后本地匹配
+    private static final int MAX_LOG_SUBSCRIPTION_ADDRESSES = 200;
+    // 断开期间落后的区块只补查最近这么多个，更早的变化由调用方的全量刷新覆盖
+    private static final int MAX_CATCH_UP_BLOCKS = 32;
+
+    private static final String NEW_HEADS = "newHeads";
+    private static final String LOGS = "logs";
+
+    private final OkHttpClient httpClient;
+    private final String webSocketUrl;
+    private final JsonRpcBatchClient batchClient;
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final ScheduledExecutorService scheduler = WalletExecutors.getInstance().scheduler();
+    private final WalletExecutors.SerialExecutor events = WalletExecutors.getInstance().newSerialExecutor();
+    private final Random random = new Random();
+
+    // 以下字段只在 events 队列中访问
+    private Listener listener;
+    private boolean running;
+    private WebSocket webSocket;
+    // newHeads 订阅成功后为 true，此时不轮询
+    private boolean streaming;
+    private boolean logsSubscribed;
+    private int nextRequestId = 1;
+    // 请求 id → 订阅类型
+    private final Map<Integer, String> pendingSubscriptions = new HashMap<>();
+    // 订阅 id → 订阅类型
+    private final Map<String, String> subscriptions = new HashMap<>();
+    private List<String> watchedAddresses = Collections.emptyList();
+    private AddressSet addressSet = new AddressSet();
+    // 已扫描到的区块
+    private long lastBlock = -1;
+    // 已知的最新区块
+    private long headBlock = -1;
+    // 已回调 onNewBlock 的最新区块
+    private long notifiedBlock = -1;
+    private boolean scanning;
+    private boolean pollInFlight;
+    private long pollInterval = MIN_POLL_INTERVAL;
+    private long reconnectDelay = MIN_RECONNECT_DELAY;
+    private ScheduledFuture<?> pollFuture;
+    // 每次安排或取消轮询时递增，已触发但过期的定时任务据此忽略
+    private int pollGeneration;
+    private ScheduledFuture<?> reconnectFuture;
+
+    /**
+     * @param webSocketUrl WebSocket 节点地址，为 null 时只使用 HTTP 轮询
+     * @param batchClient  读取区块、日志和轮询区块高度用的 HTTP 客户端
+     */
+    public BlockSubscriber(OkHttpClient httpClient, String webSocketUrl, JsonRpcBatchClient batchClient) {
+        this.httpClient = httpClient;
+        this.webSocketUrl = webSocketUrl;
+        this.batchClient = batchClient;
+    }
+
+    /**
+     * 开始订阅，重复调用时只替换监听者
+     */
+    public void start(final Listener listener) {
+        post(() -> {
+            this.listener = listener;
+            if (running) {
+                return;
+            }
+            running = true;
+            if (webSocketUrl != null) {
+                connect();
+            } else {
+                schedulePoll(0);
+            }
+        });
+    }
+
+    /**
+     * 停止订阅并断开连接，之后可以再次 start
+     */
+    public void stop() {
+        post(() -> {
+            running = false;
+            listener = null;
+            if (webSocket != null) {
+                webSocket.close(1000, null);
+            }
+            resetConnection();
+            cancelPoll();
+            if (reconnectFuture != null) {
+                reconnectFuture.cancel(false);
+                reconnectFuture = null;
+            }
+        });
+    }
+
+    /**
+     * 停止并不再接受新的事件，之后不能再使用
+     */
+    public void shutdown() {
+        stop();
+        events.shutdown();
+    }
+
+    /**
+     * 设置需要关注的地址；地址有变化且已连接时重新订阅日志
+     */
+    public void setAddresses(Collection<String> addresses) {
+        final List<String> copy = new ArrayList<>(addresses);
+        post(() -> {
+            if (copy.equals(watchedAddresses)) {
+                return;
+            }
+            watchedAddresses = copy;
+            AddressSet set = new AddressSet(copy.size());
+            for (String address : copy) {
+                set.add(address);
+            }
+            addressSet = set;
+            if (streaming) {
+                resubscribeLogs();
+            }
+        });
+    }
+
+    private void connect() {
+        Request request = new Request.Builder().url(webSocketUrl).build();
+        webSocket = httpClient.newWebSocket(request, new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket socket, Response response) {
+                post(() -> onConnected(socket));
+            }
+
+            @Override
+            public void onMessage(WebSocket socket, String text) {
+                post(() -> onText(socket, text));
+            }
+
+            @Override
+            public void onClosing(WebSocket socket, int code, String reason) {
+                socket.close(1000, null);
+            }
+
+            @Override
+            public void onClosed(WebSocket socket, int code, String reason) {
+                post(() -> onDisconnected(socket, null));
+            }
+
+            @Override
+            public void onFailure(WebSocket socket, Throwable t, Response response) {
+                post(() -> onDisconnected(socket, t));
+            }
+        });
+    }
+
+    private void onConnected(WebSocket socket) {
+        if (socket != webSocket) {
+            return;
+        }
+        WalletLog.d(TAG, "Connected to {}", webSocketUrl);
+        subscribe(NEW_HEADS, objectMapper.getNodeFactory().textNode(NEW_HEADS));
+        subscribeLogs();
+    }
+
+    private void onDisconnected(WebSocket socket, Throwable t) {
+        if (socket != webSocket) {
+            return;
+        }
+        webSocket = null;
+        resetConnection();
+        if (!running) {
+            return;
+        }
+        WalletLog.w(TAG, "WebSocket disconnected, falling back to polling", t);
+        schedulePoll(0);
+        // 加随机抖动，避免多个客户端同时重连
+        long delay = reconnectDelay + (long) (random.nextDouble() * reconnectDelay / 4);
+        reconnectDelay = Math.min(MAX_RECONNECT_DELAY, reconnectDelay * 2);
+        reconnectFuture = scheduler.schedule(() -> post(() -> {
+            reconnectFuture = null;
+            if (running && webSocket == null) {
+                connect();
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void resetConnection() {
+        webSocket = null;
+        streaming = false;
+        logsSubscribed = false;
+        pendingSubscriptions.clear();
+        subscriptions.clear();
+    }
+
+    private void subscribe(String type, JsonNode... params) {
+        int id = nextRequestId++;
+        pendingSubscriptions.put(id, type);
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("jsonrpc", "2.0");
+        request.put("id", id);
+        request.put("method", "eth_subscribe");
+        ArrayNode paramArray = request.putArray("params");
+        for (JsonNode param : params) {
+            paramArray.add(param);
+        }
+        webSocket.send(request.toString());
+    }
+
+    /**
+     * 转出、转入各一个按地址主题过滤的日志订阅
+     */
+    private void subscribeLogs() {
+        if (watchedAddresses.isEmpty() || watchedAddresses.size() > MAX_LOG_SUBSCRIPTION_ADDRESSES) {
+            logsSubscribed = false;
+            return;
+        }
+        ArrayNode addressTopics = objectMapper.createArrayNode();
+        for (String address : watchedAddresses) {
+            addressTopics.add(Constants.HEX_PREFIX + "000000000000000000000000"
+                    + Numeric.cleanHexPrefix(address).toLowerCase());
+        }
+        ObjectNode outgoing = objectMapper.createObjectNode();
+        ArrayNode outgoingTopics = outgoing.putArray("topics");
+        outgoingTopics.add(TransferHistoryIndexer.TRANSFER_TOPIC);
+        outgoingTopics.add(addressTopics);
+        ObjectNode incoming = objectMapper.createObjectNode();
+        ArrayNode incomingTopics = incoming.putArray("topics");
+        incomingTopics.add(TransferHistoryIndexer.TRANSFER_TOPIC);
+        incomingTopics.addNull();
+        incomingTopics.add(addressTopics);
+
+        JsonNode type = objectMapper.getNodeFactory().textNode(LOGS);
+        subscribe(LOGS, type, outgoing);
+        subscribe(LOGS, type, incoming);
+        logsSubscribed = true;
+    }
+
+    private void resubscribeLogs() {
+        Iterator<Map.Entry<String, String>> iterator = subscriptions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (LOGS.equals(entry.getValue())) {
+                ObjectNode request = objectMapper.createObjectNode();
+                request.put("jsonrpc", "2.0");
+                request.put("id", nextRequestId++);
+                request.put("method", "eth_unsubscribe");
+                request.putArray("params").add(entry.getKey());
+                webSocket.send(request.toString());
+                iterator.remove();
+            }
+        }
+        subscribeLogs();
+    }
+
+    private void onText(WebSocket socket, String text) {
+        if (socket != webSocket) {
+            return;
+        }
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(text);
+        } catch (IOException e) {
+            WalletLog.w(TAG, "Invalid WebSocket message", e);
+            return;
+        }
+        if (message.has("id")) {
+            onSubscribeResult(message);
+        } else if ("eth_subscription".equals(message.path("method").asText())) {
+            JsonNode params = message.path("params");
+            String type = subscriptions.get(params.path("subscription").asText());
+            if (NEW_HEADS.equals(type)) {
+                onHead(Numeric.decodeQuantity(params.path("result").path("number").asText()).longValue());
+            } else if (LOGS.equals(type)) {
+                onLog(params.path("result"));
+            }
+        }
+    }
+
+    private void onSubscribeResult(JsonNode message) {
+        String type = pendingSubscriptions.remove(message.path("id").asInt());
+        if (type == null) {
+            return;
+        }
+        if (message.has("error")) {
+            WalletLog.w(TAG, "Subscribe {} failed: {}", type, message.path("error"));
+            if (NEW_HEADS.equals(type)) {
+                // 节点不支持订阅，按断开处理：轮询并稍后重连
+                WebSocket socket = webSocket;
+                socket.close(1000, null);
+                onDisconnected(socket, null);
+            } else {
+                logsSubscribed = false;
+            }
+            return;
+        }
+        subscriptions.put(message.path("result").asText(), type);
+        if (NEW_HEADS.equals(type)) {
+            streaming = true;
+            reconnectDelay = MIN_RECONNECT_DELAY;
+            cancelPoll();
+            WalletLog.d(TAG, "Streaming new heads from {}", webSocketUrl);
+        }
+    }
+
+    private void onLog(JsonNode log) {
+        JsonNode topics = log.path("topics");
+        if (log.path("removed").asBoolean() || topics.size() != 3) {
+            return;
+        }
+        Set<String> affected = new LinkedHashSet<>();
+        matchTopic(addressSet, topics.get(1).asText(), affected);
+        matchTopic(addressSet, topics.get(2).asText(), affected);
+        if (!affected.isEmpty() && listener != null) {
+            listener.onActivity(Numeric.decodeQuantity(log.path("blockNumber").asText()).longValue(), affected);
+        }
+    }
+
+    private void schedulePoll(long delay) {
+        if (pollFuture != null || pollInFlight || streaming) {
+            return;
+        }
+        final int generation = ++pollGeneration;
+        pollFuture = scheduler.schedule(() -> post(() -> {
+            if (generation == pollGeneration) {
+                pollFuture = null;
+                poll();
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPoll() {
+        pollGeneration++;
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
+            pollFuture = null;
+        }
+    }
+
+    /**
+     * 在 IO 池中查询区块高度，结果回到 events 队列处理
+     */
+    private void poll() {
+        if (!running || streaming) {
+            return;
+        }
+        pollInFlight = true;
+        WalletExecutors.getInstance().ioExecutor().execute(() -> {
+            try {
+                String[] result = batchClient.sendForStrings(
+                        Collections.singletonList(new JsonRpcBatchClient.Request("eth_blockNumber")));
+                if (result[0] == null) {
+                    throw new IOException("eth_blockNumber failed");
+                }
+                long blockNumber = Numeric.decodeQuantity(result[0]).longValue();
+                post(() -> onPolled(blockNumber, null));
+            } catch (IOException | RuntimeException e) {
+                post(() -> onPolled(-1, e));
+            }
+        });
+    }
+
+    /**
+     * 有新区块时回到最短间隔，否则逐步拉长；请求失败时按最长间隔重试
+     */
+    private void onPolled(long blockNumber, Exception failure) {
+        pollInFlight = false;
+        if (!running || streaming) {
+            return;
+        }
+        if (failure != null) {
+            WalletLog.w(TAG, "Poll block number failed", failure);
+            pollInterval = MAX_POLL_INTERVAL;
+        } else {
+            if (blockNumber > headBlock) {
+                pollInterval = MIN_POLL_INTERVAL;
+            } else {
+                pollInterval = Math.min(MAX_POLL_INTERVAL, pollInterval * 3 / 2);
+            }
+            // 高度未变但上次扫描失败时也会重新扫描
+            onHead(blockNumber);
+        }
+        schedulePoll(pollInterval);
+    }
+
+    private void onHead(long blockNumber) {
+        if (blockNumber > headBlock) {
+            headBlock = blockNumber;
+        }
+        scanIfNeeded();
+    }
+
+    /**
+     * 扫描 (lastBlock, headBlock] 中最近的区块；同一时刻只有一次扫描，期间到达的新区块在扫描结束后继续处理
+     */
+    private void scanIfNeeded() {
+        if (scanning || headBlock <= lastBlock) {
+            return;
+        }
+        final long to = headBlock;
+        if (addressSet.isEmpty()) {
+            lastBlock = to;
+            notifyBlock(to, Collections.<String>emptySet());
+            return;
+        }
+        final long from = lastBlock < 0 ? to : Math.max(lastBlock + 1, to - MAX_CATCH_UP_BLOCKS + 1);
+        final AddressSet set = addressSet;
+        final boolean includeLogs = !logsSubscribed;
+        scanning = true;
+        WalletExecutors.getInstance().ioExecutor().execute(() -> {
+            try {
+                Set<String> affected = scanBlocks(set, includeLogs, from, to);
+                post(() -> onScanned(to, affected));
+            } catch (IOException | RuntimeException e) {
+                post(() -> onScanFailed(to, e));
+            }
+        });
+    }
+
+    private void onScanned(long to, Set<String> affected) {
+        scanning = false;
+        lastBlock = Math.max(lastBlock, to);
+        notifyBlock(to, affected);
+        scanIfNeeded();
+    }
+
+    /**
+     * 不推进 lastBlock，下一个新区块（或下一次轮询）时重新扫描这段区间
+     */
+    private void onScanFailed(long to, Exception e) {
+        scanning = false;
+        WalletLog.w(TAG, "Scan new blocks failed", e);
+        notifyBlock(to, Collections.<String>emptySet());
+    }
+
+    private void notifyBlock(long blockNumber, Set<String> affected) {
+        if (listener == null) {
+            return;
+        }
+        if (blockNumber > notifiedBlock) {
+            notifiedBlock = blockNumber;
+            listener.onNewBlock(blockNumber);
+        }
+        if (!affected.isEmpty()) {
+            listener.onActivity(blockNumber, affected);
+        }
+    }
+
+    /**
+     * 一次批量请求读取 [from, to] 的完整区块；没有日志订阅时同时查询这些区块的全部 Transfer 日志
+     */
+    private Set<String> scanBlocks(final AddressSet set, boolean includeLogs, long from, long to) throws IOException {
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>();
+        for (long block = from; block <= to; block++) {
+            requests.add(new JsonRpcBatchClient.Request("eth_getBlockByNumber",
+                    Numeric.encodeQuantity(BigInteger.valueOf(block)), true));
+        }
+        final int logsIndex = requests.size();
+        if (includeLogs) {
+            Map<String, Object> filter = new LinkedHashMap<>();
+            filter.put("fromBlock", Numeric.encodeQuantity(BigInteger.valueOf(from)));
+            filter.put("toBlock", Numeric.encodeQuantity(BigInteger.valueOf(to)));
+            filter.put("topics", Collections.singletonList(TransferHistoryIndexer.TRANSFER_TOPIC));
+            requests.add(new JsonRpcBatchClient.Request("eth_getLogs", filter));
+        }
+        final Set<String> affected = new LinkedHashSet<>();
+        batchClient.send(requests, new JsonRpcBatchClient.ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                if (index == logsIndex) {
+                    JsonNode logs = parser.readValueAsTree();
+                    for (JsonNode log : logs) {
+                        JsonNode topics = log.path("topics");
+                        if (topics.size() == 3 && !log.path("removed").asBoolean()) {
+                            matchTopic(set, topics.get(1).asText(), affected);
+                            matchTopic(set, topics.get(2).asText(), affected);
+                        }
+                    }
+                } else {
+                    matchBlock(set, parser, affected);
+                }
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                WalletLog.w(TAG, "Block scan request {} failed: {}", index, message);
+            }
+        });
+        return affected;
+    }
+
+    /**
+     * 流式读取区块中交易的 from/to，不建立 JSON 树
+     */
+    private static void matchBlock(AddressSet set, JsonParser parser, Set<String> affected) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!"transactions".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String txField = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+                    if (("from".equals(txField) || "to".equals(txField)) && token == JsonToken.VALUE_STRING) {
+                        match(set, parser.getText(), affected);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void matchTopic(AddressSet set, String topic, Set<String> affected) {
+        String hex = Numeric.cleanHexPrefix(topic);
+        if (hex.length() >= 40) {
+            match(set, hex.substring(hex.length() - 40), affected);
+        }
+    }
+
+    private static void match(AddressSet set, String address, Set<String> affected) {
+        int index = set.indexOf(address);
+        if (index >= 0) {
+            affected.add(set.get(index));
+        }
+    }
+
+    private void post(Runnable task) {
+        try {
+            events.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 已 shutdown，忽略迟到的回调
+        }
+    }
+
+    public interface Listener {
+        /**
+         * 新区块（WebSocket 推送或轮询发现）
+         */
+        void onNewBlock(long blockNumber);
+
+        /**
+         * 区块中有涉及关注地址的交易或代币转账
+         * @param addresses 小写、不带0x
+         */
+        void onActivity(long blockNumber, Set<String> addresses);
+    }
+}
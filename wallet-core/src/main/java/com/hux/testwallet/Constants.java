@@ -10,9 +10,14 @@ public class Constants {
     /**调试合约地址**/
     public static final String LIA_ADDRESS = "0x6a6708Fd8f1C064Ad66fAc165F8E8895f09de131";
 
+    /**Multicall3合约地址（各EVM链地址相同）**/
+    public static final String MULTICALL3_ADDRESS = "0xcA11bde05977b3631167028862bE2a173976CA11";
+
    /**MAINNET请求地址**/
     public static final String ETHEREUM_MAINNET_URL="https://mainnet.infura.io/v3/";
     /**SEPOLIA请求地址**/
     public static final String ETHEREUM_SEPOLIA_URL="https://sepolia.infura.io/v3/";
+    /**SEPOLIA WebSocket地址，用于订阅新区块**/
+    public static final String ETHEREUM_SEPOLIA_WS_URL="wss://sepolia.infura.io/ws/v3/";
 
 }
@@ -0,0 +1,197 @@
+package com.hux.testwallet;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已解析的 BIP32 派生路径，每一层是一个 int，硬化层级带 HARDENED_BIT 标志位
+ * 字符串路径只在第一次出现时解析，之后从缓存中取出；不可变，可作为派生节点缓存的 key
+ */
+public final class DerivationPath {
+
+    public static final int HARDENED_BIT = 0x80000000;
+
+    // 以太坊及大多数 EVM 链使用的 BIP44 币种
+    public static final int COIN_TYPE_ETH = 60;
+
+    /** BIP44 以太坊外部链节点 m/44'/60'/0'/0 **/
+    public static final DerivationPath ETH_CHAIN = bip44Chain(COIN_TYPE_ETH, 0, 0);
+
+    public static final DerivationPath MASTER = new DerivationPath(new int[0]);
+
+    // 解析缓存上限，超过后清空，路径种类通常只有几个
+    private static final int MAX_PARSE_CACHE_SIZE = 256;
+
+    private static final ConcurrentHashMap<String, DerivationPath> parseCache = new ConcurrentHashMap<>();
+
+    private final int[] elements;
+    private final int hashCode;
+
+    private DerivationPath(int[] elements) {
+        this.elements = elements;
+        this.hashCode = Arrays.hashCode(elements);
+    }
+
+    /**
+     * 解析 "m/44'/60'/0'/0/5" 形式的路径，硬化层级可写作 ' 或 h
+     */
+    public static DerivationPath parse(String path) {
+        DerivationPath cached = parseCache.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        DerivationPath parsed = new DerivationPath(parseElements(path));
+        if (parseCache.size() >= MAX_PARSE_CACHE_SIZE) {
+            parseCache.clear();
+        }
+        parseCache.put(path, parsed);
+        return parsed;
+    }
+
+    /**
+     * 由原始子节点编号构造，硬化层级需自行带上 HARDENED_BIT
+     */
+    public static DerivationPath of(int... elements) {
+        return new DerivationPath(elements.clone());
+    }
+
+    /**
+     * BIP44 链节点 m/44'/coinType'/account'/change，各层级须在 [0, 2^31) 内
+     */
+    public static DerivationPath bip44Chain(int coinType, int account, int change) {
+        return new DerivationPath(new int[]{44 | HARDENED_BIT, checkIndex("coinType", coinType) | HARDENED_BIT,
+                checkIndex("account", account) | HARDENED_BIT, checkIndex("change", change)});
+    }
+
+    /**
+     * BIP44 地址节点 m/44'/coinType'/account'/change/index，各层级须在 [0, 2^31) 内
+     */
+    public static DerivationPath bip44(int coinType, int account, int change, int index) {
+        return new DerivationPath(new int[]{44 | HARDENED_BIT, checkIndex("coinType", coinType) | HARDENED_BIT,
+                checkIndex("account", account) | HARDENED_BIT, checkIndex("change", change),
+                checkIndex("index", index)});
+    }
+
+    /**
+     * Ledger Live 风格的路径 m/44'/60'/account'/0/0，每个账户各占一个硬化的 account 层级
+     */
+    public static DerivationPath ledgerLive(int account) {
+        return bip44(COIN_TYPE_ETH, account, 0, 0);
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * 第 i 层的子节点编号，含硬化标志位
+     */
+    public int get(int i) {
+        return elements[i];
+    }
+
+    public static boolean isHardened(int element) {
+        return (element & HARDENED_BIT) != 0;
+    }
+
+    /**
+     * 父路径，MASTER 的父路径是它自己
+     */
+    public DerivationPath parent() {
+        return elements.length == 0 ? this : new DerivationPath(Arrays.copyOf(elements, elements.length - 1));
+    }
+
+    /**
+     * 前 depth 层组成的祖先路径
+     */
+    public DerivationPath prefix(int depth) {
+        return depth == elements.length ? this : new DerivationPath(Arrays.copyOf(elements, depth));
+    }
+
+    public DerivationPath child(int element) {
+        int[] childElements = Arrays.copyOf(elements, elements.length + 1);
+        childElements[elements.length] = element;
+        return new DerivationPath(childElements);
+    }
+
+    public boolean startsWith(DerivationPath prefix) {
+        if (prefix.elements.length > elements.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.elements.length; i++) {
+            if (prefix.elements[i] != elements[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int[] toArray() {
+        return elements.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DerivationPath)) return false;
+        DerivationPath that = (DerivationPath) o;
+        return hashCode == that.hashCode && Arrays.equals(elements, that.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("m");
+        for (int element : elements) {
+            builder.append('/').append(element & ~HARDENED_BIT);
+            if (isHardened(element)) {
+                builder.append('\'');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 负数会与 HARDENED_BIT 重叠：硬化层级变成另一个子节点，非硬化层级变成硬化派生
+     */
+    private static int checkIndex(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " out of range [0, 2^31): " + value);
+        }
+        return value;
+    }
+
+    private static int[] parseElements(String path) {
+        String body = path.trim();
+        if (body.startsWith("m/") || body.startsWith("M/")) {
+            body = body.substring(2);
+        } else if (body.equals("m") || body.equals("M")) {
+            body = "";
+        }
+        if (body.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = body.split("/");
+        int[] elements = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            boolean hardened = part.endsWith("'") || part.endsWith("h") || part.endsWith("H");
+            String number = hardened ? part.substring(0, part.length() - 1) : part;
+            int value;
+            try {
+                value = Integer.parseInt(number);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid derivation path: " + path, e);
+            }
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid derivation path: " + path);
+            }
+            elements[i] = hardened ? value | HARDENED_BIT : value;
+        }
+        return elements;
+    }
+}
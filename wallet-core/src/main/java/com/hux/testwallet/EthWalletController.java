@@ -0,0 +1,358 @@
+package com.hux.testwallet;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.web3j.crypto.CipherException;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+import org.web3j.utils.Numeric;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ *以太坊钱包管理器
+ */
+public class EthWalletController {
+
+    private static final String TAG = "EthWalletManager";
+
+    // 解锁会话默认有效期和空闲超时
+    private static final long DEFAULT_UNLOCK_TTL = 10 * 60 * 1000L;
+    private static final long DEFAULT_UNLOCK_IDLE_TIMEOUT = 2 * 60 * 1000L;
+
+    // 已加载的钱包，key 为小写、不带0x的地址
+    private final ConcurrentHashMap<String, WalletFile> wallets = new ConcurrentHashMap<>();
+
+    // 正在从磁盘加载的钱包，同一个 key 的并发加载共享一次读取
+    private final ConcurrentHashMap<LoadKey, CompletableFuture<WalletFile>> pendingLoads = new ConcurrentHashMap<>();
+
+    // 不指定地址时加载的默认钱包
+    private volatile String defaultAddress;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UnlockSession unlockSession = new UnlockSession(DEFAULT_UNLOCK_TTL, DEFAULT_UNLOCK_IDLE_TIMEOUT);
+
+    private static volatile EthWalletController mEthWalletController;
+
+    private EthWalletController() {
+    }
+
+
+    public static EthWalletController getInstance() {
+        if (mEthWalletController == null) {
+            synchronized (EthWalletController.class) {
+                if (mEthWalletController == null) {
+                    mEthWalletController = new EthWalletController();
+                }
+            }
+        }
+        return mEthWalletController;
+    }
+
+    /**
+     *加载默认钱包，监听只回调一次
+     */
+    public void loadWallet(final WalletStorage storage, final OnWalletLoadedListener listener) {
+        loadWallet(storage, null, listener);
+    }
+
+    /**
+     *加载指定地址的钱包，address 为空时加载默认钱包，监听只回调一次
+     */
+    public void loadWallet(final WalletStorage storage, final String address,
+                           final OnWalletLoadedListener listener) {
+        loadWalletAsync(storage, address).whenComplete(new BiConsumer<WalletFile, Throwable>() {
+            @Override
+            public void accept(WalletFile wallet, Throwable throwable) {
+                if (throwable != null) {
+                    WalletLog.e(TAG, "loadWallet：：： 加载钱包失败", throwable);
+                } else if (listener != null && wallet != null) {
+                    listener.onWalletLoaded(wallet);
+                }
+            }
+        });
+    }
+
+    /**
+     *异步加载钱包：已加载时立即完成；同一存储位置、同一地址的并发调用共享一次磁盘读取
+     * address 为空时加载第一个钱包，本地没有钱包时创建新钱包；指定地址不存在时结果为 null
+     */
+    public CompletableFuture<WalletFile> loadWalletAsync(final WalletStorage storage, final String address) {
+        final String key = address == null ? defaultAddress : key(address);
+        if (key != null) {
+            WalletFile loaded = wallets.get(key);
+            if (loaded != null) {
+                return CompletableFuture.completedFuture(loaded);
+            }
+        }
+        // 不同存储位置的默认钱包不同，合并 key 包含存储（按 WalletStorage.equals 比较）
+        final LoadKey loadKey = new LoadKey(storage, key == null ? "" : key);
+        CompletableFuture<WalletFile> future = new CompletableFuture<>();
+        CompletableFuture<WalletFile> pending = pendingLoads.putIfAbsent(loadKey, future);
+        if (pending != null) {
+            return pending;
+        }
+        if (key != null && wallets.containsKey(key)) {
+            // 上一次加载刚好在检查之后完成
+            pendingLoads.remove(loadKey, future);
+            future.complete(wallets.get(key));
+            return future;
+        }
+        getLoadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future.complete(readWallet(storage, key));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    pendingLoads.remove(loadKey, future);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     *同时加载多个钱包，各地址并行读取，全部完成后返回已找到的钱包
+     */
+    public CompletableFuture<List<WalletFile>> loadWalletsAsync(WalletStorage storage, List<String> addresses) {
+        final List<CompletableFuture<WalletFile>> futures = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            futures.add(loadWalletAsync(storage, address));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(new Function<Void, List<WalletFile>>() {
+                    @Override
+                    public List<WalletFile> apply(Void ignored) {
+                        List<WalletFile> result = new ArrayList<>(futures.size());
+                        for (CompletableFuture<WalletFile> future : futures) {
+                            WalletFile wallet = future.join();
+                            if (wallet != null) {
+                                result.add(wallet);
+                            }
+                        }
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     *已加载的钱包，没有时返回 null
+     */
+    public WalletFile getWallet(String address) {
+        return wallets.get(key(address));
+    }
+
+    /**
+     *所有已加载的钱包
+     */
+    public Collection<WalletFile> getWallets() {
+        return Collections.unmodifiableCollection(wallets.values());
+    }
+
+    /**
+     *登记一个钱包（如 HD 派生或导入的 KeyStore）
+     */
+    public void addWallet(WalletFile wallet) {
+        wallets.put(key(wallet.getAddress()), wallet);
+    }
+
+    /**
+     *移出注册表并清除该地址已解密的私钥
+     */
+    public void removeWallet(String address) {
+        String key = key(address);
+        wallets.remove(key);
+        unlockSession.evict(key);
+        if (key.equals(defaultAddress)) {
+            defaultAddress = null;
+        }
+    }
+
+    private WalletFile readWallet(WalletStorage storage, String key) throws IOException {
+        File walletDir = storage.getDir("eth");
+        //通过目录索引定位钱包文件，只解析命中的文件
+        KeystoreRepository repository = KeystoreRepository.getInstance(walletDir);
+        WalletFile wallet = key == null ? repository.loadFirst() : repository.load(key);
+        if (wallet != null) {
+            WalletLog.d(TAG, "loadWallet：：： 本地已有钱包,加载钱包文件");
+        } else if (key == null) {
+            //本地没有钱包,创建新钱包
+            WalletLog.d(TAG, "loadWallet：：： 没有钱包,创建新钱包");
+            wallet = createNewWallet(walletDir);
+        }
+        if (wallet == null) {
+            return null;
+        }
+        // 已被其他调用登记的实例优先，保证同一地址只有一个 WalletFile
+        WalletFile existing = wallets.putIfAbsent(key(wallet.getAddress()), wallet);
+        if (existing != null) {
+            wallet = existing;
+        }
+        if (key == null) {
+            defaultAddress = key(wallet.getAddress());
+        }
+        return wallet;
+    }
+
+    /**
+     *生成新钱包并登记，失败时返回 null
+     */
+    public WalletFile createNewWallet(File walletDir){
+        WalletLog.d(TAG, "createNewWallet：：：：生成新钱包！");
+        try {
+            //生成密钥对
+            ECKeyPair ecKeyPair = Keys.createEcKeyPair();
+            //WalletFile = KeyStore
+            WalletFile wallet  = Wallet.createLight(Constants.PASSWORD, ecKeyPair);
+            //写入文件同时更新目录索引
+            KeystoreRepository.getInstance(walletDir).save(getWalletFileName(wallet), wallet);
+            addWallet(wallet);
+            return wallet;
+        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidAlgorithmParameterException
+                | CipherException | IOException e) {
+            WalletLog.e(TAG, "Create new wallet failed", e);
+        }
+        return null;
+    }
+
+    /**
+     *生成钱包文件名
+     */
+    private static String getWalletFileName(WalletFile walletFile) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("'UTC--'yyyy-MM-dd'T'HH-mm-ss.SSS'--'");
+        return dateFormat.format(new Date()) + walletFile.getAddress() + ".json";
+    }
+
+    /**
+     *导出钱包文件 KeyStore，KeyStore = 私钥 + 密码
+     */
+    public String exportKeyStore(WalletFile wallet) {
+        try {
+            return objectMapper.writeValueAsString(wallet);
+        } catch (JsonProcessingException e) {
+            WalletLog.e(TAG, "Export keystore failed: {}", wallet.getAddress(), e);
+        }
+        return null;
+    }
+
+    /**
+     *导出钱包私钥
+     */
+    public String exportPrivateKey(WalletFile wallet) {
+        try {
+            BigInteger privateKey = unlock(wallet).getEcKeyPair().getPrivateKey();
+            return  Numeric.toHexStringNoPrefixZeroPadded(privateKey, Keys.PRIVATE_KEY_LENGTH_IN_HEX);
+        } catch (CipherException e) {
+            WalletLog.e(TAG, "Export private key failed: {}", wallet.getAddress(), e);
+        }
+        return null;
+    }
+
+    /**
+     *解锁钱包，会话有效期内直接复用已解密的私钥，不再重复执行 scrypt
+     */
+    public Credentials unlock(WalletFile wallet) throws CipherException {
+        Credentials credentials = unlockSession.get(wallet.getAddress());
+        if (credentials == null) {
+            ECKeyPair ecKeyPair = Wallet.decrypt(Constants.PASSWORD, wallet);
+            unlockSession.put(wallet.getAddress(), ecKeyPair);
+            credentials = Credentials.create(ecKeyPair);
+        }
+        return credentials;
+    }
+
+    /**
+     *在后台线程解锁钱包
+     */
+    public CompletableFuture<Credentials> unlockAsync(final WalletFile wallet) {
+        return CompletableFuture.supplyAsync(new Supplier<Credentials>() {
+            @Override
+            public Credentials get() {
+                try {
+                    return unlock(wallet);
+                } catch (CipherException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, WalletExecutors.getInstance().cpuExecutor());
+    }
+
+    /**
+     *设置解锁会话的有效期和空闲超时（毫秒），<=0 表示不限制
+     */
+    public void setUnlockTimeouts(long ttlMillis, long idleTimeoutMillis) {
+        unlockSession.setTimeouts(ttlMillis, idleTimeoutMillis);
+    }
+
+    /**
+     *锁定所有钱包，清除已解密的私钥
+     */
+    public void lock() {
+        unlockSession.clear();
+    }
+
+    private static Executor getLoadExecutor() {
+        return WalletExecutors.getInstance().ioExecutor();
+    }
+
+    private static String key(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+
+    public static interface OnWalletLoadedListener {
+        void onWalletLoaded(WalletFile wallet);
+    }
+
+    /**
+     * 并发加载的合并 key：存储位置 + 地址（默认钱包为空串）
+     */
+    private static final class LoadKey {
+        final WalletStorage storage;
+        final String address;
+
+        LoadKey(WalletStorage storage, String address) {
+            this.storage = storage;
+            this.address = address;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LoadKey)) return false;
+            LoadKey that = (LoadKey) o;
+            return storage.equals(that.storage) && address.equals(that.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * storage.hashCode() + address.hashCode();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EIP-1559 手续费预言机
+ * 定时拉取 eth_feeHistory，把最近若干区块的 baseFee 和小费分位数放进环形缓冲区，
+ * 发送交易时直接读取本地建议值，不再每次请求 eth_gasPrice；eth_estimateGas 结果按调用形态缓存
+ */
+public class FeeOracle {
+
+    private static final String TAG = "FeeOracle";
+
+    // 环形缓冲区保留的区块数
+    private static final int WINDOW_SIZE = 20;
+    private static final long POLL_INTERVAL_SECONDS = 12;
+    // 超过该时间没有更新（轮询已停止）时，getFees 先同步拉取一次
+    private static final long MAX_FEE_AGE_MILLIS = TimeUnit.SECONDS.toMillis(POLL_INTERVAL_SECONDS * 2);
+
+    // eth_feeHistory 请求的小费分位数，与 Speed 一一对应
+    private static final double[] REWARD_PERCENTILES = {10, 50, 90};
+
+    // estimateGas 结果上浮 20%，避免状态变化导致 out of gas
+    private static final int GAS_LIMIT_MARGIN_PERCENT = 120;
+    private static final BigInteger TRANSFER_GAS_LIMIT = BigInteger.valueOf(21000);
+    private static final int GAS_ESTIMATE_CACHE_SIZE = 256;
+
+    public enum Speed {
+        SLOW, NORMAL, FAST
+    }
+
+    private final JsonRpcBatchClient batchClient;
+
+    // 环形缓冲区，受 this 保护
+    private final long[] baseFees = new long[WINDOW_SIZE];
+    private final long[][] rewards = new long[REWARD_PERCENTILES.length][WINDOW_SIZE];
+    private int head;
+    private int size;
+    private long newestBlock = -1;
+    private long nextBaseFee;
+    private long chainId = -1;
+    private long lastPollMillis;
+
+    private final Map<String, BigInteger> gasEstimates = new LinkedHashMap<String, BigInteger>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BigInteger> eldest) {
+            return size() > GAS_ESTIMATE_CACHE_SIZE;
+        }
+    };
+
+    // 轮询任务，受 this 保护
+    private ScheduledFuture<?> pollTask;
+
+    public FeeOracle(JsonRpcBatchClient batchClient) {
+        this.batchClient = batchClient;
+    }
+
+    /**
+     * 开始定时轮询，页面可见时调用，与 stop() 成对使用
+     * 由共享定时器触发，请求在 IO 线程池中执行；上一次请求未完成时本次合并
+     */
+    public synchronized void start() {
+        if (pollTask != null) {
+            return;
+        }
+        final String pollKey = "fee-oracle-poll@" + System.identityHashCode(this);
+        pollTask = WalletExecutors.getInstance().scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                WalletExecutors.getInstance().submit(WalletExecutors.Pool.IO, FeeOracle.this, pollKey,
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    poll();
+                                } catch (IOException e) {
+                                    WalletLog.e(TAG, "Poll fee history failed", e);
+                                }
+                            }
+                        });
+            }
+        }, 0, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止轮询，已有的手续费数据保留，过期后 getFees 会同步拉取
+     */
+    public synchronized void stop() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+            WalletExecutors.getInstance().cancelAll(this);
+        }
+    }
+
+    /**
+     * 当前建议手续费；还没有数据或数据已过期时同步拉取一次
+     */
+    public Fees getFees(Speed speed) throws IOException {
+        synchronized (this) {
+            if (size > 0 && System.currentTimeMillis() - lastPollMillis < MAX_FEE_AGE_MILLIS) {
+                return suggest(speed);
+            }
+        }
+        poll();
+        synchronized (this) {
+            if (size == 0) {
+                throw new IOException("No fee history available");
+            }
+            return suggest(speed);
+        }
+    }
+
+    /**
+     * 链 ID，首次调用时随手续费历史一起查询；eth_chainId 失败时抛出，不能用无效的链 ID 签名
+     */
+    public long getChainId() throws IOException {
+        synchronized (this) {
+            if (chainId >= 0) {
+                return chainId;
+            }
+        }
+        poll();
+        synchronized (this) {
+            if (chainId < 0) {
+                throw new IOException("eth_chainId unavailable");
+            }
+            return chainId;
+        }
+    }
+
+    /**
+     * 估算 gasLimit，相同调用形态（目标地址、方法选择器、数据长度、是否带 value）复用缓存结果
+     * 不带数据的普通转账直接使用 21000
+     */
+    public BigInteger estimateGas(String from, String to, BigInteger value, String data) throws IOException {
+        String cleanData = data == null ? "" : Numeric.cleanHexPrefix(data);
+        if (cleanData.isEmpty() && isPlainAccount(to)) {
+            return TRANSFER_GAS_LIMIT;
+        }
+        String shape = Numeric.cleanHexPrefix(to).toLowerCase() + ":"
+                + (cleanData.length() >= 8 ? cleanData.substring(0, 8) : cleanData) + ":"
+                + cleanData.length() + ":" + (value.signum() > 0);
+        synchronized (gasEstimates) {
+            BigInteger cached = gasEstimates.get(shape);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Map<String, String> call = new HashMap<>();
+        call.put("from", from);
+        call.put("to", to);
+        call.put("value", Numeric.encodeQuantity(value));
+        if (!cleanData.isEmpty()) {
+            call.put("data", Numeric.prependHexPrefix(cleanData));
+        }
+        String[] result = batchClient.sendForStrings(Arrays.asList(new JsonRpcBatchClient.Request("eth_estimateGas", call)));
+        if (result[0] == null) {
+            throw new IOException("eth_estimateGas failed: " + to);
+        }
+        BigInteger gasLimit = Numeric.decodeQuantity(result[0])
+                .multiply(BigInteger.valueOf(GAS_LIMIT_MARGIN_PERCENT)).divide(BigInteger.valueOf(100));
+        synchronized (gasEstimates) {
+            gasEstimates.put(shape, gasLimit);
+        }
+        return gasLimit;
+    }
+
+    /**
+     * 目标地址是否为普通账户（无合约代码），结果同样缓存
+     */
+    private boolean isPlainAccount(String to) throws IOException {
+        String key = "code:" + Numeric.cleanHexPrefix(to).toLowerCase();
+        synchronized (gasEstimates) {
+            BigInteger cached = gasEstimates.get(key);
+            if (cached != null) {
+                return cached.signum() == 0;
+            }
+        }
+        String[] result = batchClient.sendForStrings(Arrays.asList(
+                new JsonRpcBatchClient.Request("eth_getCode", to, "latest")));
+        if (result[0] == null) {
+            throw new IOException("eth_getCode failed: " + to);
+        }
+        boolean plain = Numeric.cleanHexPrefix(result[0]).isEmpty();
+        synchronized (gasEstimates) {
+            gasEstimates.put(key, plain ? BigInteger.ZERO : BigInteger.ONE);
+        }
+        return plain;
+    }
+
+    /**
+     * 拉取最近一个窗口的手续费历史，只追加新区块，首次同时查询 chainId
+     */
+    void poll() throws IOException {
+        boolean needChainId;
+        synchronized (this) {
+            needChainId = chainId < 0;
+        }
+        List<Double> percentiles = new ArrayList<>(REWARD_PERCENTILES.length);
+        for (double percentile : REWARD_PERCENTILES) {
+            percentiles.add(percentile);
+        }
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>(2);
+        requests.add(new JsonRpcBatchClient.Request("eth_feeHistory",
+                Numeric.encodeQuantity(BigInteger.valueOf(WINDOW_SIZE)), "latest", percentiles));
+        if (needChainId) {
+            requests.add(new JsonRpcBatchClient.Request("eth_chainId"));
+        }
+        final JsonNode[] results = new JsonNode[requests.size()];
+        final String[] error = new String[1];
+        batchClient.send(requests, new JsonRpcBatchClient.ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                results[index] = parser.readValueAsTree();
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                error[0] = code + " " + message;
+            }
+        });
+        if (results[0] == null) {
+            throw new IOException("eth_feeHistory failed: " + error[0]);
+        }
+        synchronized (this) {
+            if (needChainId && results[1] != null) {
+                chainId = Numeric.decodeQuantity(results[1].asText()).longValue();
+            }
+            append(results[0]);
+            lastPollMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 把 feeHistory 中比已有数据新的区块追加进环形缓冲区
+     */
+    private void append(JsonNode history) {
+        long oldestBlock = Numeric.decodeQuantity(history.get("oldestBlock").asText()).longValue();
+        JsonNode baseFeeNodes = history.get("baseFeePerGas");
+        JsonNode rewardNodes = history.get("reward");
+        int blocks = rewardNodes == null ? 0 : rewardNodes.size();
+        for (int i = 0; i < blocks; i++) {
+            long blockNumber = oldestBlock + i;
+            if (blockNumber <= newestBlock) {
+                continue;
+            }
+            baseFees[head] = Numeric.decodeQuantity(baseFeeNodes.get(i).asText()).longValue();
+            JsonNode blockRewards = rewardNodes.get(i);
+            for (int p = 0; p < REWARD_PERCENTILES.length; p++) {
+                rewards[p][head] = Numeric.decodeQuantity(blockRewards.get(p).asText()).longValue();
+            }
+            head = (head + 1) % WINDOW_SIZE;
+            size = Math.min(size + 1, WINDOW_SIZE);
+            newestBlock = blockNumber;
+        }
+        // baseFeePerGas 比 reward 多一项，最后一项是下一个区块的 baseFee
+        if (baseFeeNodes != null && baseFeeNodes.size() > blocks) {
+            nextBaseFee = Numeric.decodeQuantity(baseFeeNodes.get(blocks).asText()).longValue();
+        }
+    }
+
+    /**
+     * 小费取窗口内对应分位数的中位数，maxFee = 2 × 下一区块 baseFee + 小费
+     */
+    private Fees suggest(Speed speed) {
+        long[] window = Arrays.copyOf(rewards[speed.ordinal()], size);
+        Arrays.sort(window);
+        long priorityFee = window[size / 2];
+        long baseFee = nextBaseFee > 0 ? nextBaseFee : baseFees[(head - 1 + WINDOW_SIZE) % WINDOW_SIZE];
+        return new Fees(BigInteger.valueOf(priorityFee),
+                BigInteger.valueOf(baseFee).shiftLeft(1).add(BigInteger.valueOf(priorityFee)),
+                BigInteger.valueOf(baseFee));
+    }
+
+    /**
+     * EIP-1559 手续费建议
+     */
+    public static class Fees {
+        public final BigInteger maxPriorityFeePerGas;
+        public final BigInteger maxFeePerGas;
+        public final BigInteger baseFee;
+
+        Fees(BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas, BigInteger baseFee) {
+            this.maxPriorityFeePerGas = maxPriorityFeePerGas;
+            this.maxFeePerGas = maxFeePerGas;
+            this.baseFee = baseFee;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.hux.testwallet;
+
+import java.io.File;
+
+/**
+ * 基于根目录的存储实现，目录名与 Android Context.getDir 一致（app_ 前缀）
+ */
+public class FileWalletStorage implements WalletStorage {
+
+    private final File rootDir;
+
+    public FileWalletStorage(File rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    @Override
+    public File getDir(String name) {
+        File dir = new File(rootDir, "app_" + name);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileWalletStorage)) return false;
+        return rootDir.getAbsoluteFile().equals(((FileWalletStorage) o).rootDir.getAbsoluteFile());
+    }
+
+    @Override
+    public int hashCode() {
+        return rootDir.getAbsoluteFile().hashCode();
+    }
+}
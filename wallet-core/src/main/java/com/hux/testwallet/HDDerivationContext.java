@@ -0,0 +1,301 @@
+package com.hux.testwallet;
+
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.params.MainNetParams;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.utils.Numeric;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 单个助记词的派生上下文
+ * 种子（PBKDF2 2048轮）和硬化父节点 m/44'/60'/0'/0 只计算一次，之后每个地址只需一次非硬化派生
+ * 其他账户、币种的路径按 DerivationPath 派生，各级祖先节点放入节点树缓存，
+ * 同一父节点下的兄弟路径不再重复派生硬化层级
+ */
+public class HDDerivationContext {
+
+    // 批量派生时每个子任务处理的最小区间
+    private static final int SPLIT_THRESHOLD = 16;
+
+    // 节点树缓存上限，超过后清空（外部链节点单独保存，不受影响）
+    private static final int MAX_CACHED_NODES = 256;
+
+    private static volatile ForkJoinPool derivePool;
+
+    private byte[] seed;
+
+    private volatile DeterministicKey masterKey;
+
+    // 路径 → 已派生的中间节点（含私钥）
+    private final ConcurrentHashMap<DerivationPath, DeterministicKey> nodes = new ConcurrentHashMap<>();
+
+    // BIP44 外部链节点 m/44'/60'/0'/0
+    private volatile DeterministicKey chainKey;
+
+    // 外部链节点的公钥版本，只派生地址时不接触私钥
+    private volatile DeterministicKey chainPubKey;
+
+    HDDerivationContext(byte[] seed, DeterministicKey masterKey) {
+        this.seed = seed;
+        this.masterKey = masterKey;
+        this.chainKey = deriveNode(DerivationPath.ETH_CHAIN);
+        this.chainPubKey = chainKey.dropPrivateBytes();
+    }
+
+    /**
+     * 派生 m/44'/60'/0'/0/{index} 子密钥
+     */
+    public DeterministicKey deriveChildKey(int accountIndex) {
+        if (accountIndex < 0) {
+            throw new IllegalArgumentException("Invalid account index: " + accountIndex);
+        }
+        return HDKeyDerivation.deriveChildKey(requireChainKey(), new ChildNumber(accountIndex, false));
+    }
+
+    /**
+     * 派生 m/44'/60'/0'/0/{index} 密钥对
+     */
+    public ECKeyPair deriveKeyPair(int accountIndex) {
+        return ECKeyPair.create(deriveChildKey(accountIndex).getPrivKey());
+    }
+
+    /**
+     * 派生 m/44'/60'/0'/0/{index} 的未压缩公钥（64字节，不含0x04前缀），只走公钥链
+     */
+    public byte[] derivePublicKey(int accountIndex) {
+        if (accountIndex < 0) {
+            throw new IllegalArgumentException("Invalid account index: " + accountIndex);
+        }
+        DeterministicKey childKey = HDKeyDerivation.deriveChildKey(requireChainPubKey(), new ChildNumber(accountIndex, false));
+        return toRawPublicKey(childKey);
+    }
+
+    /**
+     * 派生 m/44'/60'/0'/0/{index} 的地址（不带0x前缀），不计算私钥也不生成 KeyStore
+     */
+    public String deriveAddress(int accountIndex) {
+        return Numeric.toHexStringNoPrefix(Keys.getAddress(derivePublicKey(accountIndex)));
+    }
+
+    /**
+     * 派生任意路径的密钥，父节点来自节点树缓存，只需派生最后一层
+     */
+    public DeterministicKey deriveKey(DerivationPath path) {
+        if (path.size() == 0) {
+            return requireMasterKey();
+        }
+        DeterministicKey parent = deriveNode(path.parent());
+        return HDKeyDerivation.deriveChildKey(parent, new ChildNumber(path.get(path.size() - 1)));
+    }
+
+    public ECKeyPair deriveKeyPair(DerivationPath path) {
+        return ECKeyPair.create(deriveKey(path).getPrivKey());
+    }
+
+    /**
+     * 派生任意路径的地址（不带0x前缀）
+     */
+    public String deriveAddress(DerivationPath path) {
+        return Numeric.toHexStringNoPrefix(Keys.getAddress(toRawPublicKey(deriveKey(path))));
+    }
+
+    /**
+     * 批量派生 chainPath/[fromIndex, toIndex) 的地址，用于其他账户或 EVM 币种的链节点
+     */
+    public List<String> deriveAddresses(DerivationPath chainPath, int fromIndex, int toIndex) {
+        String[] addresses = new String[checkRange(fromIndex, toIndex)];
+        DeterministicKey chainPubKey = deriveNode(chainPath).dropPrivateBytes();
+        getDerivePool().invoke(new DeriveRangeTask(chainPubKey, fromIndex,
+                fromIndex, toIndex, null, addresses));
+        return Arrays.asList(addresses);
+    }
+
+    /**
+     * 导出外部链节点 m/44'/60'/0'/0 的扩展公钥（xpub），用于只读派生
+     */
+    public String serializeChainXpub() {
+        return requireChainPubKey().serializePubB58(MainNetParams.get());
+    }
+
+    /**
+     * 批量派生 [fromIndex, toIndex) 的地址（不带0x前缀），按索引顺序返回
+     */
+    public List<String> deriveAddresses(int fromIndex, int toIndex) {
+        String[] addresses = new String[checkRange(fromIndex, toIndex)];
+        getDerivePool().invoke(new DeriveRangeTask(requireChainPubKey(), fromIndex,
+                fromIndex, toIndex, null, addresses));
+        return Arrays.asList(addresses);
+    }
+
+    /**
+     * 批量派生 [fromIndex, toIndex) 的密钥对，按索引顺序返回
+     */
+    public List<ECKeyPair> deriveKeyPairs(int fromIndex, int toIndex) {
+        ECKeyPair[] keyPairs = new ECKeyPair[checkRange(fromIndex, toIndex)];
+        getDerivePool().invoke(new DeriveRangeTask(requireChainKey(), fromIndex,
+                fromIndex, toIndex, keyPairs, null));
+        return Arrays.asList(keyPairs);
+    }
+
+    /**
+     * 缓存的BIP39种子
+     */
+    public byte[] getSeed() {
+        byte[] current = seed;
+        if (current == null) {
+            throw new IllegalStateException("Derivation context is locked");
+        }
+        return current;
+    }
+
+    public boolean isLocked() {
+        return chainKey == null;
+    }
+
+    /**
+     * 锁定：清零种子并丢弃缓存的父节点
+     * DeterministicKey 内部的私钥是 BigInteger，无法原地清零，只能释放引用
+     */
+    synchronized void wipe() {
+        if (seed != null) {
+            Arrays.fill(seed, (byte) 0);
+            seed = null;
+        }
+        chainKey = null;
+        chainPubKey = null;
+        masterKey = null;
+        nodes.clear();
+    }
+
+    private static int checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex < fromIndex) {
+            throw new IllegalArgumentException("Invalid index range: [" + fromIndex + ", " + toIndex + ")");
+        }
+        return toIndex - fromIndex;
+    }
+
+    static ForkJoinPool getDerivePool() {
+        if (derivePool == null) {
+            synchronized (HDDerivationContext.class) {
+                if (derivePool == null) {
+                    derivePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                }
+            }
+        }
+        return derivePool;
+    }
+
+    /**
+     * 未压缩公钥去掉0x04前缀，即以太坊地址哈希的输入
+     */
+    private static byte[] toRawPublicKey(DeterministicKey key) {
+        byte[] encoded = key.getPubKeyPoint().getEncoded(false);
+        return Arrays.copyOfRange(encoded, 1, encoded.length);
+    }
+
+    /**
+     * 派生并缓存路径上的各级节点，从最近的已缓存祖先开始
+     */
+    private DeterministicKey deriveNode(DerivationPath path) {
+        int depth = path.size();
+        if (depth == 0) {
+            return requireMasterKey();
+        }
+        DeterministicKey node = nodes.get(path);
+        if (node != null) {
+            return node;
+        }
+        int start = depth - 1;
+        for (; start > 0; start--) {
+            node = nodes.get(path.prefix(start));
+            if (node != null) {
+                break;
+            }
+        }
+        if (node == null) {
+            node = requireMasterKey();
+        }
+        for (int i = start; i < depth; i++) {
+            node = HDKeyDerivation.deriveChildKey(node, new ChildNumber(path.get(i)));
+            if (nodes.size() >= MAX_CACHED_NODES) {
+                nodes.clear();
+            }
+            nodes.put(path.prefix(i + 1), node);
+        }
+        return node;
+    }
+
+    private DeterministicKey requireMasterKey() {
+        DeterministicKey current = masterKey;
+        if (current == null) {
+            throw new IllegalStateException("Derivation context is locked");
+        }
+        return current;
+    }
+
+    private DeterministicKey requireChainPubKey() {
+        DeterministicKey current = chainPubKey;
+        if (current == null) {
+            throw new IllegalStateException("Derivation context is locked");
+        }
+        return current;
+    }
+
+    private DeterministicKey requireChainKey() {
+        DeterministicKey current = chainKey;
+        if (current == null) {
+            throw new IllegalStateException("Derivation context is locked");
+        }
+        return current;
+    }
+
+    /**
+     * 对索引区间二分拆分，所有子任务共享同一个外部链节点
+     * 只需要地址时传入公钥节点，走公钥派生
+     */
+    private static class DeriveRangeTask extends RecursiveAction {
+        private final DeterministicKey chainKey;
+        private final int baseIndex;
+        private final int from;
+        private final int to;
+        private final ECKeyPair[] keyPairs;
+        private final String[] addresses;
+
+        DeriveRangeTask(DeterministicKey chainKey, int baseIndex, int from, int to,
+                        ECKeyPair[] keyPairs, String[] addresses) {
+            this.chainKey = chainKey;
+            this.baseIndex = baseIndex;
+            this.from = from;
+            this.to = to;
+            this.keyPairs = keyPairs;
+            this.addresses = addresses;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    DeterministicKey childKey = HDKeyDerivation.deriveChildKey(chainKey, new ChildNumber(i, false));
+                    if (keyPairs != null) {
+                        keyPairs[i - baseIndex] = ECKeyPair.create(childKey.getPrivKey());
+                    }
+                    if (addresses != null) {
+                        addresses[i - baseIndex] = Numeric.toHexStringNoPrefix(Keys.getAddress(toRawPublicKey(childKey)));
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DeriveRangeTask(chainKey, baseIndex, from, mid, keyPairs, addresses),
+                    new DeriveRangeTask(chainKey, baseIndex, mid, to, keyPairs, addresses));
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 转账历史存储
+ * history.bin 为定长记录的追加写文件，每条记录带两个指针，分别指向 from、to 地址的上一条记录，
+ * 即每个跟踪地址一条按时间倒序的链表（按地址索引）；
+ * history.heads 保存每个地址的链表头和已索引到的区块，整体原子替换，是唯一的提交点，
+ * 打开时只读取 heads，不扫描记录
+ */
+public class HistoryStore implements Closeable {
+
+    private static final int RECORD_MAGIC = 0x48495354; // "HIST"
+    private static final int HEADS_MAGIC = 0x48454144; // "HEAD"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final int HASH_SIZE = 32;
+    private static final int ADDRESS_SIZE = 20;
+    private static final int VALUE_SIZE = 32;
+    // block(8) + logIndex(4) + txHash(32) + token(20) + from(20) + to(20) + value(32) + prevFrom(4) + prevTo(4)
+    static final int RECORD_SIZE = 8 + 4 + HASH_SIZE + ADDRESS_SIZE * 3 + VALUE_SIZE + 4 + 4;
+    // address(20) + head(4) + syncedBlock(8)
+    private static final int HEAD_SIZE = ADDRESS_SIZE + 4 + 8;
+
+    private static final int NO_RECORD = -1;
+    private static final byte[] ZERO_ADDRESS = new byte[ADDRESS_SIZE];
+
+    private final File headsFile;
+    private final RandomAccessFile recordFile;
+    private final FileChannel records;
+
+    // 以下字段受 this 保护
+    private int recordCount;
+    // 地址（小写、不带0x）→ 链表头与同步进度
+    private final Map<String, Head> heads = new LinkedHashMap<>();
+
+    public HistoryStore(File dir) throws IOException {
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        headsFile = new File(dir, "history.heads");
+        recordFile = new RandomAccessFile(new File(dir, "history.bin"), "rw");
+        records = recordFile.getChannel();
+        readHeads();
+        if (records.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(RECORD_MAGIC).putInt(VERSION);
+            header.flip();
+            records.truncate(0);
+            writeFully(header, 0);
+        }
+        // 上次提交之后追加的记录没有被 heads 引用，丢弃后由索引器重新扫描
+        long committed = HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+        if (records.size() > committed) {
+            records.truncate(committed);
+        }
+    }
+
+    /**
+     * 开始跟踪地址，syncedBlock 为视为已索引到的区块（之后的区块才会被扫描）；已跟踪时不变
+     */
+    public synchronized boolean track(String address, long syncedBlock) throws IOException {
+        String key = key(address);
+        if (heads.containsKey(key)) {
+            return false;
+        }
+        heads.put(key, new Head(NO_RECORD, syncedBlock));
+        writeHeads();
+        return true;
+    }
+
+    public synchronized boolean isTracked(String address) {
+        return heads.containsKey(key(address));
+    }
+
+    /**
+     * 所有跟踪中的地址
+     */
+    public synchronized List<String> getAddresses() {
+        return new ArrayList<>(heads.keySet());
+    }
+
+    /**
+     * 地址已索引到的区块，未跟踪时返回 -1
+     */
+    public synchronized long getSyncedBlock(String address) {
+        Head head = heads.get(key(address));
+        return head == null ? -1 : head.syncedBlock;
+    }
+
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * 提交一个区块窗口的扫描结果：追加转账记录并把 addresses 的进度推进到 syncedBlock
+     * 同一笔转账只写一条记录，链接到所有参与的跟踪地址
+     * @param transfers 按 (区块, logIndex) 升序，已去重
+     */
+    public synchronized void commit(List<Transfer> transfers, Collection<String> addresses, long syncedBlock)
+            throws IOException {
+        if (!transfers.isEmpty()) {
+            ByteBuffer buffer = ByteBuffer.allocate(transfers.size() * RECORD_SIZE);
+            int position = recordCount;
+            for (Transfer transfer : transfers) {
+                Head fromHead = heads.get(transfer.from);
+                Head toHead = heads.get(transfer.to);
+                // 另一方也是跟踪地址且已扫描过该区块时，记录已在它的窗口中写入并链接到双方
+                if (isIndexed(fromHead, transfer.blockNumber) || isIndexed(toHead, transfer.blockNumber)) {
+                    continue;
+                }
+                int prevFrom = fromHead == null ? NO_RECORD : fromHead.head;
+                int prevTo = toHead == null ? NO_RECORD : toHead.head;
+                encode(buffer, transfer, prevFrom, prevTo);
+                if (fromHead != null) {
+                    fromHead.head = position;
+                }
+                if (toHead != null) {
+                    toHead.head = position;
+                }
+                position++;
+            }
+            buffer.flip();
+            try {
+                writeFully(buffer, HEADER_SIZE + (long) recordCount * RECORD_SIZE);
+                records.force(false);
+            } catch (IOException e) {
+                // 链表头已在内存中前移，回到上次提交的状态
+                heads.clear();
+                readHeads();
+                throw e;
+            }
+            recordCount = position;
+        }
+        for (String address : addresses) {
+            Head head = heads.get(key(address));
+            if (head != null && head.syncedBlock < syncedBlock) {
+                head.syncedBlock = syncedBlock;
+            }
+        }
+        writeHeads();
+    }
+
+    /**
+     * 地址的转账历史，最新的在前
+     */
+    public synchronized List<Transfer> load(String address, int offset, int limit) throws IOException {
+        String key = key(address);
+        Head head = heads.get(key);
+        List<Transfer> result = new ArrayList<>();
+        if (head == null) {
+            return result;
+        }
+        byte[] addressBytes = Numeric.hexStringToByteArray(key);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        int position = head.head;
+        int skipped = 0;
+        while (position != NO_RECORD && result.size() < limit) {
+            buffer.clear();
+            readFully(buffer, HEADER_SIZE + (long) position * RECORD_SIZE);
+            buffer.flip();
+            Transfer transfer = decode(buffer);
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(transfer);
+            }
+            // from 是本地址时沿 prevFrom 继续，否则沿 prevTo
+            boolean outgoing = matches(buffer, 8 + 4 + HASH_SIZE + ADDRESS_SIZE, addressBytes);
+            position = buffer.getInt(RECORD_SIZE - (outgoing ? 8 : 4));
+        }
+        return result;
+    }
+
+    /**
+     * 清空历史（创建或恢复新钱包时）
+     */
+    public synchronized void clear() throws IOException {
+        heads.clear();
+        recordCount = 0;
+        writeHeads();
+        records.truncate(HEADER_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        records.close();
+        recordFile.close();
+    }
+
+    private void readHeads() throws IOException {
+        if (!headsFile.exists()) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(headsFile, "r")) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) file.length());
+            FileChannel channel = file.getChannel();
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 读满
+            }
+            buffer.flip();
+            if (buffer.remaining() < 16 || buffer.getInt() != HEADS_MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported history heads: " + headsFile);
+            }
+            recordCount = buffer.getInt();
+            int addressCount = buffer.getInt();
+            byte[] address = new byte[ADDRESS_SIZE];
+            for (int i = 0; i < addressCount; i++) {
+                buffer.get(address);
+                int head = buffer.getInt();
+                long syncedBlock = buffer.getLong();
+                heads.put(Numeric.toHexStringNoPrefix(address), new Head(head, syncedBlock));
+            }
+        }
+    }
+
+    /**
+     * 先写临时文件再重命名，heads 要么是旧版本要么是新版本
+     */
+    private void writeHeads() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + heads.size() * HEAD_SIZE);
+        buffer.putInt(HEADS_MAGIC).putInt(VERSION).putInt(recordCount).putInt(heads.size());
+        for (Map.Entry<String, Head> entry : heads.entrySet()) {
+            buffer.put(Numeric.hexStringToByteArray(entry.getKey()));
+            buffer.putInt(entry.getValue().head);
+            buffer.putLong(entry.getValue().syncedBlock);
+        }
+        buffer.flip();
+        File temp = new File(headsFile.getPath() + ".tmp");
+        try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        if (!temp.renameTo(headsFile)) {
+            throw new IOException("Replace history heads failed: " + headsFile);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += records.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = records.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of history store");
+            }
+        }
+    }
+
+    private static boolean isIndexed(Head head, long blockNumber) {
+        return head != null && head.syncedBlock >= blockNumber;
+    }
+
+    private static void encode(ByteBuffer buffer, Transfer transfer, int prevFrom, int prevTo) {
+        buffer.putLong(transfer.blockNumber);
+        buffer.putInt(transfer.logIndex);
+        buffer.put(Numeric.hexStringToByteArray(transfer.transactionHash));
+        buffer.put(transfer.token == null ? ZERO_ADDRESS : Numeric.hexStringToByteArray(transfer.token));
+        buffer.put(Numeric.hexStringToByteArray(transfer.from));
+        buffer.put(Numeric.hexStringToByteArray(transfer.to));
+        byte[] value = transfer.value.toByteArray();
+        int start = value.length > VALUE_SIZE ? value.length - VALUE_SIZE : 0;
+        for (int i = value.length - start; i < VALUE_SIZE; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.put(value, start, value.length - start);
+        buffer.putInt(prevFrom);
+        buffer.putInt(prevTo);
+    }
+
+    private static Transfer decode(ByteBuffer buffer) {
+        long blockNumber = buffer.getLong(0);
+        int logIndex = buffer.getInt(8);
+        byte[] hash = new byte[HASH_SIZE];
+        byte[] token = new byte[ADDRESS_SIZE];
+        byte[] from = new byte[ADDRESS_SIZE];
+        byte[] to = new byte[ADDRESS_SIZE];
+        byte[] value = new byte[VALUE_SIZE];
+        buffer.position(12);
+        buffer.get(hash).get(token).get(from).get(to).get(value);
+        boolean ether = matches(buffer, 12 + HASH_SIZE, ZERO_ADDRESS);
+        return new Transfer(blockNumber, logIndex, Numeric.toHexString(hash),
+                ether ? null : Numeric.toHexStringNoPrefix(token),
+                Numeric.toHexStringNoPrefix(from), Numeric.toHexStringNoPrefix(to), new BigInteger(1, value));
+    }
+
+    private static boolean matches(ByteBuffer buffer, int offset, byte[] address) {
+        for (int i = 0; i < ADDRESS_SIZE; i++) {
+            if (buffer.get(offset + i) != address[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String key(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+
+    private static class Head {
+        int head;
+        long syncedBlock;
+
+        Head(int head, long syncedBlock) {
+            this.head = head;
+            this.syncedBlock = syncedBlock;
+        }
+    }
+
+    /**
+     * 一笔转账：ERC-20 Transfer 日志或原生 ETH 交易
+     */
+    public static class Transfer {
+        public final long blockNumber;
+        // 日志在区块中的序号；原生 ETH 交易为 -1 - 交易序号
+        public final int logIndex;
+        public final String transactionHash;
+        // 代币合约地址（小写、不带0x），原生 ETH 为 null
+        public final String token;
+        public final String from;
+        public final String to;
+        public final BigInteger value;
+
+        public Transfer(long blockNumber, int logIndex, String transactionHash, String token,
+                        String from, String to, BigInteger value) {
+            this.blockNumber = blockNumber;
+            this.logIndex = logIndex;
+            this.transactionHash = transactionHash;
+            this.token = token == null ? null : key(token);
+            this.from = key(from);
+            this.to = key(to);
+            this.value = value;
+        }
+
+        public boolean isEther() {
+            return token == null;
+        }
+
+        @Override
+        public String toString() {
+            return "Transfer{" + blockNumber + "/" + logIndex + ", " + (token == null ? "ETH" : token)
+                    + ", " + from + " -> " + to + ", " + value + "}";
+        }
+    }
+}
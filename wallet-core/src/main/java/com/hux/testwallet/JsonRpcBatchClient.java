@@ -0,0 +1,288 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * JSON-RPC 批量请求客户端
+ * 多个请求打包成一次 HTTP 调用，响应用 Jackson 流式解析，逐条回调结果，不构建完整的响应对象树
+ */
+public class JsonRpcBatchClient {
+
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
+
+    // 单次批量请求的默认条数，超出后拆分为多个并发的 HTTP 调用
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private final OkHttpClient httpClient;
+    private final String url;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JsonRpcBatchClient(OkHttpClient httpClient, String url) {
+        this.httpClient = httpClient;
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 发送一次批量请求，阻塞直到全部结果回调完成
+     */
+    public void send(List<Request> requests, ResultHandler handler) throws IOException {
+        if (requests.isEmpty()) {
+            return;
+        }
+        try (Response response = newCall(requests, 0, requests.size()).execute()) {
+            parseResponse(response, 0, handler);
+        }
+    }
+
+    /**
+     * 按 chunkSize 拆分后并发发送，所有分片完成后返回；回调中的 index 为 requests 中的全局下标
+     * 不同分片的回调可能来自不同线程
+     */
+    public void sendChunked(List<Request> requests, int chunkSize, final ResultHandler handler) throws IOException {
+        if (requests.size() <= chunkSize) {
+            send(requests, handler);
+            return;
+        }
+        int chunkCount = (requests.size() + chunkSize - 1) / chunkSize;
+        final CountDownLatch latch = new CountDownLatch(chunkCount);
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            final int offset = from;
+            int to = Math.min(from + chunkSize, requests.size());
+            newCall(requests, from, to).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    failure.compareAndSet(null, e);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try {
+                        parseResponse(response, offset, handler);
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        response.close();
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch request interrupted", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * 异步发送一次批量请求，不占用调用线程；回调在 OkHttp 的线程上执行，全部结果回调完成后 future 完成
+     */
+    public CompletableFuture<Void> sendAsync(List<Request> requests, final ResultHandler handler) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        if (requests.isEmpty()) {
+            future.complete(null);
+            return future;
+        }
+        Call call;
+        try {
+            call = newCall(requests, 0, requests.size());
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    parseResponse(response, 0, handler);
+                    future.complete(null);
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 批量请求，结果按请求顺序以字符串返回，适用于返回值为标量（如十六进制数值）的方法
+     * 单条请求出错时对应位置为 null
+     */
+    public String[] sendForStrings(List<Request> requests) throws IOException {
+        final String[] results = new String[requests.size()];
+        sendChunked(requests, DEFAULT_CHUNK_SIZE, new ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                results[index] = parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                results[index] = null;
+            }
+        });
+        return results;
+    }
+
+    private Call newCall(List<Request> requests, int from, int to) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * (to - from));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+            generator.writeStartArray();
+            for (int i = from; i < to; i++) {
+                Request request = requests.get(i);
+                generator.writeStartObject();
+                generator.writeStringField("jsonrpc", "2.0");
+                generator.writeNumberField("id", i - from);
+                generator.writeStringField("method", request.method);
+                generator.writeFieldName("params");
+                generator.writeStartArray();
+                for (Object param : request.params) {
+                    generator.writeObject(param);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        okhttp3.Request httpRequest = new okhttp3.Request.Builder()
+                .url(url)
+                .post(RequestBody.create(JSON_MEDIA_TYPE, body.toByteArray()))
+                .build();
+        return httpClient.newCall(httpRequest);
+    }
+
+    private void parseResponse(Response response, int offset, ResultHandler handler) throws IOException {
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            throw new IOException("JSON-RPC batch failed, HTTP " + response.code());
+        }
+        try (InputStream in = body.byteStream();
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.setCodec(objectMapper);
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                // 节点不支持批量时通常返回单个错误对象
+                throw new IOException("Unexpected JSON-RPC batch response: " + objectMapper.readTree(parser));
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                parseItem(parser, offset, handler);
+            }
+        }
+    }
+
+    /**
+     * 解析单条响应；result 出现在 id 之前时先缓冲，拿到 id 后再回调
+     */
+    private void parseItem(JsonParser parser, int offset, ResultHandler handler) throws IOException {
+        int id = -1;
+        TokenBuffer pendingResult = null;
+        int errorCode = 0;
+        String errorMessage = null;
+        boolean hasError = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getValueAsInt(-1);
+            } else if ("result".equals(field)) {
+                if (id >= 0) {
+                    handler.onResult(offset + id, parser);
+                    // 回调未消费完的结构在这里跳过
+                    parser.skipChildren();
+                } else {
+                    pendingResult = new TokenBuffer(parser);
+                    pendingResult.copyCurrentStructure(parser);
+                }
+            } else if ("error".equals(field)) {
+                hasError = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String errorField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("code".equals(errorField)) {
+                        errorCode = parser.getValueAsInt();
+                    } else if ("message".equals(errorField)) {
+                        errorMessage = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (id < 0) {
+            return;
+        }
+        if (hasError) {
+            handler.onError(offset + id, errorCode, errorMessage);
+        } else if (pendingResult != null) {
+            try (JsonParser bufferedParser = pendingResult.asParser(parser.getCodec())) {
+                bufferedParser.nextToken();
+                handler.onResult(offset + id, bufferedParser);
+            }
+        }
+    }
+
+    /**
+     * 单条 JSON-RPC 请求
+     */
+    public static class Request {
+        final String method;
+        final List<Object> params;
+
+        public Request(String method, Object... params) {
+            this.method = method;
+            this.params = new ArrayList<>(params.length);
+            for (Object param : params) {
+                this.params.add(param);
+            }
+        }
+    }
+
+    /**
+     * 流式结果回调，onResult 时 parser 停在 result 的第一个 token 上
+     */
+    public interface ResultHandler {
+        void onResult(int index, JsonParser parser) throws IOException;
+
+        void onError(int index, int code, String message);
+    }
+}
@@ -0,0 +1,417 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.web3j.crypto.WalletFile;
+import org.web3j.utils.Numeric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * KeyStore 目录索引
+ * 索引文件通过内存映射保存 地址 → 文件名 → 文件大小/修改时间 的定长条目，按地址查找为 O(1)；
+ * 打开钱包时只解析命中的那一个 KeyStore 文件；每次访问前列出目录并比对每个文件的大小和修改时间，
+ * 只重新解析新增或大小、修改时间变化的文件（原地覆盖写入不会改变目录的修改时间，因此不依赖它判断）
+ */
+public class KeystoreRepository {
+
+    private static final String TAG = "KeystoreRepository";
+
+    private static final int MAGIC = 0x4b494458; // "KIDX"
+    private static final int VERSION = 1;
+    // magic(4) + version(4) + count(4) + dirLastModified(8)
+    private static final int HEADER_SIZE = 20;
+
+    private static final int ADDRESS_SIZE = 20;
+    // UTC--yyyy-MM-ddTHH-mm-ss.SSS--<40位地址>.json 为 75 字节
+    private static final int MAX_NAME_BYTES = 110;
+    // address(20) + size(8) + lastModified(8) + nameLength(1) + name(110) + padding(1)
+    static final int ENTRY_SIZE = 148;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Map<String, KeystoreRepository> instances = new HashMap<>();
+
+    private final File keystoreDir;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    // 以下字段受 this 保护
+    private RandomAccessFile indexFile;
+    private MappedByteBuffer index;
+    private int count;
+    // 地址（小写、不带0x）→ 条目位置
+    private final Map<String, Integer> slots = new HashMap<>();
+    // 文件名 → 条目位置
+    private final Map<String, Integer> names = new HashMap<>();
+    // 不是 KeyStore 的文件名 → 解析时的 大小:修改时间，未变化时不再重复解析
+    private final Map<String, String> unparsable = new HashMap<>();
+
+    KeystoreRepository(File keystoreDir, File indexPath) throws IOException {
+        this.keystoreDir = keystoreDir;
+        this.indexFile = new RandomAccessFile(indexPath, "rw");
+        if (indexFile.length() < HEADER_SIZE || !readIndex()) {
+            resetIndex(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * 获取 KeyStore 目录对应的仓库，索引文件与目录同级，命名为 &lt;目录名&gt;.idx
+     */
+    public static KeystoreRepository getInstance(File keystoreDir) throws IOException {
+        synchronized (instances) {
+            String key = keystoreDir.getAbsolutePath();
+            KeystoreRepository repository = instances.get(key);
+            if (repository == null) {
+                File indexPath = new File(keystoreDir.getParentFile(), keystoreDir.getName() + ".idx");
+                repository = new KeystoreRepository(keystoreDir, indexPath);
+                instances.put(key, repository);
+            }
+            return repository;
+        }
+    }
+
+    public synchronized int size() {
+        refresh();
+        return count;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 已索引的所有地址（不带0x前缀）
+     */
+    public synchronized List<String> addresses() {
+        refresh();
+        List<String> addresses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            addresses.add(readAddress(i));
+        }
+        return addresses;
+    }
+
+    public synchronized boolean contains(String address) {
+        refresh();
+        return slots.containsKey(key(address));
+    }
+
+    /**
+     * 按地址查找 KeyStore 文件，没有时返回 null
+     */
+    public synchronized File find(String address) {
+        refresh();
+        Integer slot = slots.get(key(address));
+        return slot == null ? null : new File(keystoreDir, readName(slot));
+    }
+
+    /**
+     * 按地址加载 KeyStore，只解析这一个文件
+     */
+    public WalletFile load(String address) throws IOException {
+        File file = find(address);
+        return file == null ? null : objectMapper.readValue(file, WalletFile.class);
+    }
+
+    /**
+     * 加载索引中的第一个 KeyStore，没有时返回 null
+     */
+    public WalletFile loadFirst() throws IOException {
+        File file;
+        synchronized (this) {
+            refresh();
+            if (count == 0) {
+                return null;
+            }
+            file = new File(keystoreDir, readName(0));
+        }
+        return objectMapper.readValue(file, WalletFile.class);
+    }
+
+    /**
+     * 写入新的 KeyStore 文件并直接更新索引，无需重新扫描目录
+     */
+    public synchronized File save(String fileName, WalletFile walletFile) throws IOException {
+        if (!keystoreDir.exists()) {
+            keystoreDir.mkdirs();
+        }
+        refresh();
+        File destination = new File(keystoreDir, fileName);
+        objectMapper.writeValue(destination, walletFile);
+        putEntry(walletFile.getAddress(), destination);
+        writeDirLastModified();
+        return destination;
+    }
+
+    /**
+     * 删除地址对应的 KeyStore 文件及索引条目
+     */
+    public synchronized boolean delete(String address) {
+        refresh();
+        Integer slot = slots.get(key(address));
+        if (slot == null) {
+            return false;
+        }
+        boolean deleted = new File(keystoreDir, readName(slot)).delete();
+        removeEntry(slot);
+        writeDirLastModified();
+        return deleted;
+    }
+
+    /**
+     * 列出文件名，与索引比对后增量加入新文件、移除已删除的文件；
+     * 已索引的文件比对记录的大小和修改时间，变化时重新解析地址
+     * 列目录和读取文件属性远比解析 KeyStore 便宜，所以每次都做，不依赖目录修改时间
+     */
+    public synchronized void refresh() {
+        long dirLastModified = keystoreDir.lastModified();
+        int added = 0;
+        int removed = 0;
+        String[] fileNames = keystoreDir.list();
+        Set<String> present = new HashSet<>();
+        List<String> changed = new ArrayList<>();
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                present.add(fileName);
+                Integer slot = names.get(fileName);
+                if (slot != null) {
+                    File file = new File(keystoreDir, fileName);
+                    if (file.length() != readSize(slot) || file.lastModified() != readLastModified(slot)) {
+                        changed.add(fileName);
+                    }
+                } else if (fileName.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES) {
+                    File file = new File(keystoreDir, fileName);
+                    String signature = file.length() + ":" + file.lastModified();
+                    if (signature.equals(unparsable.get(fileName))) {
+                        continue;
+                    }
+                    String address = parseAddress(file);
+                    if (address != null) {
+                        unparsable.remove(fileName);
+                        putEntry(address, file);
+                        added++;
+                    } else {
+                        unparsable.put(fileName, signature);
+                    }
+                }
+            }
+        }
+        unparsable.keySet().retainAll(present);
+        for (int i = count - 1; i >= 0; i--) {
+            if (!present.contains(readName(i))) {
+                removeEntry(i);
+                removed++;
+            }
+        }
+        // 被替换的文件中地址可能已不同，移除旧条目后重新解析
+        for (String fileName : changed) {
+            Integer slot = names.get(fileName);
+            if (slot == null) {
+                continue;
+            }
+            removeEntry(slot);
+            File file = new File(keystoreDir, fileName);
+            String address = parseAddress(file);
+            if (address != null) {
+                putEntry(address, file);
+            } else {
+                unparsable.put(fileName, file.length() + ":" + file.lastModified());
+            }
+        }
+        if (dirLastModified != index.getLong(12)) {
+            index.putLong(12, dirLastModified);
+        }
+        if (added > 0 || removed > 0 || !changed.isEmpty()) {
+            WalletLog.d(TAG, "Index refreshed: {} keystores in {}", count, keystoreDir.getName());
+        }
+    }
+
+    private void putEntry(String address, File file) {
+        String key = key(address);
+        Integer existing = slots.get(key);
+        int slot = existing != null ? existing : count;
+        if (existing == null) {
+            ensureCapacity(count + 1);
+            count++;
+            index.putInt(8, count);
+        } else {
+            names.remove(readName(slot));
+        }
+        byte[] name = file.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("KeyStore file name too long: " + file.getName());
+        }
+        int position = HEADER_SIZE + slot * ENTRY_SIZE;
+        index.position(position);
+        index.put(Numeric.hexStringToByteArray(key));
+        index.putLong(file.length());
+        index.putLong(file.lastModified());
+        index.put((byte) name.length);
+        index.put(name);
+        slots.put(key, slot);
+        names.put(file.getName(), slot);
+    }
+
+    /**
+     * 用最后一个条目填补被删除的位置
+     */
+    private void removeEntry(int slot) {
+        String removedKey = readAddress(slot);
+        slots.remove(removedKey);
+        names.remove(readName(slot));
+        int last = count - 1;
+        if (slot != last) {
+            byte[] entry = new byte[ENTRY_SIZE];
+            index.position(HEADER_SIZE + last * ENTRY_SIZE);
+            index.get(entry);
+            index.position(HEADER_SIZE + slot * ENTRY_SIZE);
+            index.put(entry);
+            slots.put(readAddress(slot), slot);
+            names.put(readName(slot), slot);
+        }
+        count = last;
+        index.putInt(8, count);
+    }
+
+    private String readAddress(int slot) {
+        byte[] address = new byte[ADDRESS_SIZE];
+        index.position(HEADER_SIZE + slot * ENTRY_SIZE);
+        index.get(address);
+        return Numeric.toHexStringNoPrefix(address);
+    }
+
+    private long readSize(int slot) {
+        return index.getLong(HEADER_SIZE + slot * ENTRY_SIZE + ADDRESS_SIZE);
+    }
+
+    private long readLastModified(int slot) {
+        return index.getLong(HEADER_SIZE + slot * ENTRY_SIZE + ADDRESS_SIZE + 8);
+    }
+
+    private String readName(int slot) {
+        int position = HEADER_SIZE + slot * ENTRY_SIZE + ADDRESS_SIZE + 16;
+        int length = index.get(position) & 0xff;
+        byte[] name = new byte[length];
+        index.position(position + 1);
+        index.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取已有索引，格式不符时返回 false 由调用方重建
+     */
+    private boolean readIndex() throws IOException {
+        map(indexFile.length());
+        if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            return false;
+        }
+        int stored = index.getInt(8);
+        if (stored < 0 || HEADER_SIZE + (long) stored * ENTRY_SIZE > index.capacity()) {
+            return false;
+        }
+        count = stored;
+        for (int i = 0; i < count; i++) {
+            slots.put(readAddress(i), i);
+            names.put(readName(i), i);
+        }
+        return true;
+    }
+
+    private void resetIndex(int capacity) throws IOException {
+        indexFile.setLength(0);
+        map(HEADER_SIZE + (long) capacity * ENTRY_SIZE);
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, 0);
+        // 强制下次访问时扫描目录
+        index.putLong(12, -1);
+        count = 0;
+        slots.clear();
+        names.clear();
+    }
+
+    private void ensureCapacity(int entries) {
+        long required = HEADER_SIZE + (long) entries * ENTRY_SIZE;
+        if (required <= index.capacity()) {
+            return;
+        }
+        try {
+            long capacity = (index.capacity() - HEADER_SIZE) / ENTRY_SIZE;
+            map(Math.max(required, HEADER_SIZE + capacity * 2 * ENTRY_SIZE));
+        } catch (IOException e) {
+            throw new IllegalStateException("Grow keystore index failed", e);
+        }
+    }
+
+    private void map(long size) throws IOException {
+        FileChannel channel = indexFile.getChannel();
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void writeDirLastModified() {
+        index.putLong(12, keystoreDir.lastModified());
+    }
+
+    /**
+     * 标准文件名 UTC--...--&lt;地址&gt;.json 中直接取地址；
+     * 其他文件只流式读取 address 字段，不做完整的 KeyStore 解析
+     */
+    private String parseAddress(File file) {
+        String name = file.getName();
+        int separator = name.lastIndexOf("--");
+        if (separator >= 0 && name.endsWith(".json")) {
+            String candidate = name.substring(separator + 2, name.length() - 5);
+            if (candidate.length() == ADDRESS_SIZE * 2 && isHex(candidate)) {
+                return candidate.toLowerCase();
+            }
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("address".equals(field)) {
+                    String address = Numeric.cleanHexPrefix(parser.getText());
+                    return address.length() == ADDRESS_SIZE * 2 && isHex(address) ? address.toLowerCase() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            WalletLog.w(TAG, "Skip unreadable keystore: " + name, e);
+        }
+        return null;
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String key(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+}
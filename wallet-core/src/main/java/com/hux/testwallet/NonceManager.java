@@ -0,0 +1,78 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地 nonce 管理
+ * 按地址记录下一个可用的 nonce，首次使用时从链上 pending 交易数同步，之后在本地递增，
+ * 连续发送不必重复查询链上状态，也不会出现两笔交易使用同一个 nonce
+ */
+public class NonceManager {
+
+    private final Map<String, BigInteger> nextNonces = new HashMap<>();
+
+    /**
+     * 是否已有本地记录
+     */
+    public synchronized boolean isTracked(String address) {
+        return nextNonces.containsKey(key(address));
+    }
+
+    /**
+     * 用链上 pending 交易数同步，取本地与链上的较大值
+     */
+    public synchronized void sync(String address, BigInteger chainNonce) {
+        String key = key(address);
+        BigInteger local = nextNonces.get(key);
+        nextNonces.put(key, local == null ? chainNonce : local.max(chainNonce));
+    }
+
+    /**
+     * 取出下一个 nonce 并递增
+     */
+    public synchronized BigInteger next(String address) {
+        return reserve(address, 1);
+    }
+
+    /**
+     * 连续预留 count 个 nonce，返回第一个
+     */
+    public synchronized BigInteger reserve(String address, int count) {
+        String key = key(address);
+        BigInteger nonce = nextNonces.get(key);
+        if (nonce == null) {
+            throw new IllegalStateException("Nonce not synced for " + address);
+        }
+        nextNonces.put(key, nonce.add(BigInteger.valueOf(count)));
+        return nonce;
+    }
+
+    /**
+     * 归还 reserve 预留的 [firstNonce, firstNonce + count)，仅当之后没有新的预留时回退
+     *  @return 是否已回退
+     */
+    public synchronized boolean release(String address, BigInteger firstNonce, int count) {
+        String key = key(address);
+        BigInteger nonce = nextNonces.get(key);
+        if (nonce == null || !nonce.equals(firstNonce.add(BigInteger.valueOf(count)))) {
+            return false;
+        }
+        nextNonces.put(key, firstNonce);
+        return true;
+    }
+
+    /**
+     * 丢弃本地记录，下次发送时重新从链上同步（发送失败或 nonce 冲突时调用）
+     */
+    public synchronized void reset(String address) {
+        nextNonces.remove(key(address));
+    }
+
+    private static String key(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+}
@@ -0,0 +1,45 @@
+package com.hux.testwallet;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * 进程级共享的 JSON-RPC HTTP 客户端
+ * 所有 JSON-RPC 请求（JsonRpcBatchClient、BlockSubscriber）共享同一个 OkHttpClient（连接池和调度线程），
+ * 不区分节点，切换网络时保活的连接仍留在连接池中复用；随进程存在，不需要关闭
+ */
+public class RpcHttpClient {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static volatile RpcHttpClient instance;
+
+    private final OkHttpClient httpClient;
+
+    private RpcHttpClient() {
+        httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .build();
+    }
+
+    public static RpcHttpClient getInstance() {
+        if (instance == null) {
+            synchronized (RpcHttpClient.class) {
+                if (instance == null) {
+                    instance = new RpcHttpClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 所有客户端共享的 OkHttpClient
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+}
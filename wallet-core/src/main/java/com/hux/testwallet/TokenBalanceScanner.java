@@ -0,0 +1,254 @@
+package com.hux.testwallet;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * ERC-20 余额批量扫描
+ * 把 (token, holder) 的 balanceOf 调用打包进 Multicall3.aggregate3，一次 eth_call 读取上百个余额，
+ * 多个 eth_call 再合并成一次 JSON-RPC 批量请求；结果直接 ABI 解码到基本类型数组
+ */
+public class TokenBalanceScanner {
+
+    // aggregate3((address,bool,bytes)[])
+    private static final byte[] AGGREGATE3_SELECTOR = {(byte) 0x82, (byte) 0xad, (byte) 0x56, (byte) 0xcb};
+    // balanceOf(address)
+    private static final byte[] BALANCE_OF_SELECTOR = {(byte) 0x70, (byte) 0xa0, (byte) 0x82, (byte) 0x31};
+
+    private static final int WORD = 32;
+    // 每个 (target, allowFailure, callData) 元组编码后的长度：3个字 + bytes长度 + 36字节调用数据补齐到64
+    private static final int CALL_TUPLE_SIZE = WORD * 4 + WORD * 2;
+
+    // 单个 eth_call 内的最大调用数，避免超过节点的 gas 上限
+    private static final int MAX_CALLS_PER_MULTICALL = 500;
+
+    private final JsonRpcBatchClient batchClient;
+    private final String multicallAddress;
+
+    public TokenBalanceScanner(OkHttpClient httpClient, String url) {
+        this(new JsonRpcBatchClient(httpClient, url), Constants.MULTICALL3_ADDRESS);
+    }
+
+    public TokenBalanceScanner(JsonRpcBatchClient batchClient, String multicallAddress) {
+        this.batchClient = batchClient;
+        this.multicallAddress = multicallAddress;
+    }
+
+    /**
+     * 查询 tokens × holders 的全部余额
+     */
+    public TokenBalances getBalances(List<String> tokens, List<String> holders) throws IOException {
+        int total = tokens.size() * holders.size();
+        TokenBalances balances = new TokenBalances(tokens.size(), holders.size());
+        if (total == 0) {
+            return balances;
+        }
+
+        byte[][] tokenWords = new byte[tokens.size()][];
+        for (int t = 0; t < tokens.size(); t++) {
+            tokenWords[t] = Numeric.hexStringToByteArray(tokens.get(t));
+        }
+        byte[][] holderWords = new byte[holders.size()][];
+        for (int h = 0; h < holders.size(); h++) {
+            holderWords[h] = Numeric.hexStringToByteArray(holders.get(h));
+        }
+
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>();
+        for (int from = 0; from < total; from += MAX_CALLS_PER_MULTICALL) {
+            int to = Math.min(from + MAX_CALLS_PER_MULTICALL, total);
+            byte[] callData = encodeAggregate3(tokenWords, holderWords, from, to);
+            Map<String, String> call = new HashMap<>();
+            call.put("to", multicallAddress);
+            call.put("data", Numeric.toHexString(callData));
+            requests.add(new JsonRpcBatchClient.Request("eth_call", call, "latest"));
+        }
+
+        String[] results = batchClient.sendForStrings(requests);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                continue;
+            }
+            int from = i * MAX_CALLS_PER_MULTICALL;
+            int expected = Math.min(from + MAX_CALLS_PER_MULTICALL, total) - from;
+            decodeAggregate3(Numeric.hexStringToByteArray(results[i]), from, expected, balances);
+        }
+        return balances;
+    }
+
+    /**
+     * 编码 aggregate3 调用数据，flat 下标 k 对应 token = k / holderCount，holder = k % holderCount
+     */
+    private static byte[] encodeAggregate3(byte[][] tokens, byte[][] holders, int from, int to) {
+        int n = to - from;
+        byte[] out = new byte[4 + WORD * 2 + n * WORD + n * CALL_TUPLE_SIZE];
+        System.arraycopy(AGGREGATE3_SELECTOR, 0, out, 0, 4);
+        int pos = 4;
+        writeInt(out, pos, WORD);
+        pos += WORD;
+        writeInt(out, pos, n);
+        pos += WORD;
+        int arrayBase = pos;
+        for (int i = 0; i < n; i++) {
+            writeInt(out, arrayBase + i * WORD, n * WORD + i * CALL_TUPLE_SIZE);
+        }
+        for (int i = 0; i < n; i++) {
+            int k = from + i;
+            int tuple = arrayBase + n * WORD + i * CALL_TUPLE_SIZE;
+            writeAddress(out, tuple, tokens[k / holders.length]);
+            // allowFailure = true，非合约地址或回滚的代币不影响其他结果
+            writeInt(out, tuple + WORD, 1);
+            writeInt(out, tuple + WORD * 2, WORD * 3);
+            writeInt(out, tuple + WORD * 3, 4 + WORD);
+            System.arraycopy(BALANCE_OF_SELECTOR, 0, out, tuple + WORD * 4, 4);
+            writeAddress(out, tuple + WORD * 4 + 4, holders[k % holders.length]);
+        }
+        return out;
+    }
+
+    /**
+     * 解码 aggregate3 返回值 (bool success, bytes returnData)[]
+     * 返回值来自节点，不信任其中的偏移和长度：数量与请求不符或越界时抛 IOException
+     */
+    private static void decodeAggregate3(byte[] data, int from, int expected, TokenBalances balances)
+            throws IOException {
+        if (data.length < WORD * 2) {
+            throw new IOException("Malformed aggregate3 response, length " + data.length);
+        }
+        int arrayOffset = readInt(data, 0);
+        int n = readInt(data, arrayOffset);
+        if (n != expected) {
+            throw new IOException("Malformed aggregate3 response, " + n + " results for " + expected + " calls");
+        }
+        int base = arrayOffset + WORD;
+        for (int i = 0; i < n; i++) {
+            int tuple = offset(base, readInt(data, base + i * WORD));
+            boolean success = readInt(data, tuple) != 0;
+            int bytesOffset = offset(tuple, readInt(data, tuple + WORD));
+            int length = readInt(data, bytesOffset);
+            if ((long) bytesOffset + WORD + length > data.length) {
+                throw new IOException("Malformed aggregate3 response, returnData overruns at " + bytesOffset);
+            }
+            if (success && length >= WORD) {
+                balances.set(from + i, data, bytesOffset + WORD);
+            }
+        }
+    }
+
+    private static void writeInt(byte[] out, int wordOffset, int value) {
+        int end = wordOffset + WORD;
+        out[end - 4] = (byte) (value >>> 24);
+        out[end - 3] = (byte) (value >>> 16);
+        out[end - 2] = (byte) (value >>> 8);
+        out[end - 1] = (byte) value;
+    }
+
+    private static void writeAddress(byte[] out, int wordOffset, byte[] address) {
+        System.arraycopy(address, 0, out, wordOffset + WORD - address.length, address.length);
+    }
+
+    /**
+     * 读取作为偏移或长度的 uint256，超出 int 范围或越界时抛 IOException
+     */
+    private static int readInt(byte[] data, int wordOffset) throws IOException {
+        if (wordOffset < 0 || wordOffset > data.length - WORD) {
+            throw new IOException("Malformed aggregate3 response, offset " + wordOffset);
+        }
+        int end = wordOffset + WORD;
+        for (int i = wordOffset; i < end - 4; i++) {
+            if (data[i] != 0) {
+                throw new IOException("Malformed aggregate3 response, value too large at " + wordOffset);
+            }
+        }
+        int value = ((data[end - 4] & 0xff) << 24) | ((data[end - 3] & 0xff) << 16)
+                | ((data[end - 2] & 0xff) << 8) | (data[end - 1] & 0xff);
+        if (value < 0) {
+            throw new IOException("Malformed aggregate3 response, value too large at " + wordOffset);
+        }
+        return value;
+    }
+
+    private static int offset(int base, int relative) throws IOException {
+        long offset = (long) base + relative;
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Malformed aggregate3 response, offset overflow");
+        }
+        return (int) offset;
+    }
+
+    /**
+     * tokens × holders 的余额矩阵，uint256 按大端拆成4个 long 存放，取值时才构建 BigInteger
+     */
+    public static class TokenBalances {
+        private final int tokenCount;
+        private final int holderCount;
+        private final long[] words;
+        private final boolean[] success;
+
+        TokenBalances(int tokenCount, int holderCount) {
+            this.tokenCount = tokenCount;
+            this.holderCount = holderCount;
+            this.words = new long[tokenCount * holderCount * 4];
+            this.success = new boolean[tokenCount * holderCount];
+        }
+
+        public int getTokenCount() {
+            return tokenCount;
+        }
+
+        public int getHolderCount() {
+            return holderCount;
+        }
+
+        /**
+         * 对应调用是否成功
+         */
+        public boolean isSuccess(int tokenIndex, int holderIndex) {
+            return success[tokenIndex * holderCount + holderIndex];
+        }
+
+        /**
+         * 余额（代币最小单位），调用失败时返回 null
+         */
+        public BigInteger getBalance(int tokenIndex, int holderIndex) {
+            int k = tokenIndex * holderCount + holderIndex;
+            if (!success[k]) {
+                return null;
+            }
+            byte[] bytes = new byte[WORD];
+            for (int w = 0; w < 4; w++) {
+                long word = words[k * 4 + w];
+                for (int b = 0; b < 8; b++) {
+                    bytes[w * 8 + b] = (byte) (word >>> (56 - b * 8));
+                }
+            }
+            return new BigInteger(1, bytes);
+        }
+
+        /**
+         * 余额是否为0，不构建 BigInteger
+         */
+        public boolean isZero(int tokenIndex, int holderIndex) {
+            int k = tokenIndex * holderCount + holderIndex;
+            return (words[k * 4] | words[k * 4 + 1] | words[k * 4 + 2] | words[k * 4 + 3]) == 0;
+        }
+
+        void set(int k, byte[] data, int offset) {
+            success[k] = true;
+            for (int w = 0; w < 4; w++) {
+                long word = 0;
+                for (int b = 0; b < 8; b++) {
+                    word = (word << 8) | (data[offset + w * 8 + b] & 0xff);
+                }
+                words[k * 4 + w] = word;
+            }
+        }
+    }
+}
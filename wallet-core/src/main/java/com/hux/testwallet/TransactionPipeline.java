@@ -0,0 +1,244 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 交易发送流水线
+ * 手续费由 FeeOracle 在后台定时更新，发送时直接读取；nonce 由 NonceManager 在本地递增，
+ * 只在首次发送或失败后查询链上 pending 交易数；
+ * 发送请求在串行队列中依次签名（EIP-1559 type-2 交易）、广播，多笔交易可以连续排队而不必重新查询链上状态
+ */
+public class TransactionPipeline {
+
+    private static final String TAG = "TransactionPipeline";
+
+    private static final Map<String, TransactionPipeline> instances = new HashMap<>();
+
+    private final JsonRpcBatchClient batchClient;
+    private final NonceManager nonceManager = new NonceManager();
+    private final FeeOracle feeOracle;
+    // 串行签名和广播，保证 nonce 按顺序到达节点；在共享 IO 池上执行，不占用专属线程
+    private final WalletExecutors.SerialExecutor sendExecutor = WalletExecutors.getInstance().newSerialExecutor();
+
+    public TransactionPipeline(JsonRpcBatchClient batchClient) {
+        this.batchClient = batchClient;
+        this.feeOracle = new FeeOracle(batchClient);
+    }
+
+    /**
+     * 获取指定网络的进程级流水线，同一网络共享 nonce 记录
+     * 手续费轮询不自动开始，由页面在可见期间调用 getFeeOracle().start()/stop()
+     */
+    public static TransactionPipeline getInstance(String endpoint) {
+        synchronized (instances) {
+            TransactionPipeline pipeline = instances.get(endpoint);
+            if (pipeline == null) {
+                pipeline = new TransactionPipeline(new JsonRpcBatchClient(
+                        RpcHttpClient.getInstance().getHttpClient(), endpoint));
+                instances.put(endpoint, pipeline);
+            }
+            return pipeline;
+        }
+    }
+
+    /**
+     * 停止手续费轮询并不再接受新的发送，已排队的发送继续完成；
+     * 同时从进程级缓存中移除，之后 getInstance 会为该网络创建新的流水线
+     */
+    public void shutdown() {
+        feeOracle.stop();
+        sendExecutor.shutdown();
+        synchronized (instances) {
+            instances.values().remove(this);
+        }
+    }
+
+    public NonceManager getNonceManager() {
+        return nonceManager;
+    }
+
+    public FeeOracle getFeeOracle() {
+        return feeOracle;
+    }
+
+    /**
+     * 排队发送 ETH 转账，返回交易哈希的 Future；gasLimit 为 null 时按调用形态估算，listener 可为 null
+     */
+    public Future<String> sendEther(final Credentials credentials, final String to, final BigInteger value,
+                                    final BigInteger gasLimit, final SendListener listener) {
+        return enqueue(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                try {
+                    String transactionHash = doSendEther(credentials, to, value, gasLimit);
+                    if (listener != null) {
+                        listener.onSent(transactionHash);
+                    }
+                    return transactionHash;
+                } catch (Exception e) {
+                    if (listener != null) {
+                        listener.onFailure(e);
+                    }
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * 在发送队列中为 from 连续预留 count 个 nonce，并返回当前手续费建议，供批量签名使用
+     * 与单笔发送共用同一队列，批量交易不会和单笔交易抢占同一个 nonce
+     */
+    public Reservation reserve(final String from, final int count) throws IOException {
+        Future<Reservation> future = enqueue(new Callable<Reservation>() {
+            @Override
+            public Reservation call() throws Exception {
+                syncNonce(from);
+                return new Reservation(nonceManager.reserve(from, count), feeOracle.getChainId(),
+                        feeOracle.getFees(FeeOracle.Speed.NORMAL));
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Nonce reservation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Nonce reservation failed", e.getCause());
+        }
+    }
+
+    /**
+     * 归还没有用到的预留（只签名、签名失败时），在发送队列中执行
+     * 之后没有新的预留时回退本地 nonce，否则丢弃本地记录，下次发送重新从链上同步
+     */
+    public void release(final String from, final Reservation reservation, final int count) {
+        sendExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!nonceManager.release(from, reservation.firstNonce, count)) {
+                    nonceManager.reset(from);
+                }
+            }
+        });
+    }
+
+    /**
+     * 在发送队列中丢弃 from 的本地 nonce 记录，不会与排队中的发送交错
+     */
+    public void resetNonce(final String from) {
+        sendExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                nonceManager.reset(from);
+            }
+        });
+    }
+
+    private <T> Future<T> enqueue(Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        sendExecutor.execute(task);
+        return task;
+    }
+
+    private String doSendEther(Credentials credentials, String to, BigInteger value, BigInteger gasLimit) throws IOException {
+        String from = credentials.getAddress();
+        syncNonce(from);
+        if (gasLimit == null) {
+            gasLimit = feeOracle.estimateGas(from, to, value, null);
+        }
+        FeeOracle.Fees fees = feeOracle.getFees(FeeOracle.Speed.NORMAL);
+
+        BigInteger nonce = nonceManager.next(from);
+        RawTransaction rawTransaction = RawTransaction.createEtherTransaction(feeOracle.getChainId(), nonce, gasLimit,
+                to, value, fees.maxPriorityFeePerGas, fees.maxFeePerGas);
+        String hexValue = Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, credentials));
+        try {
+            String transactionHash = sendRawTransaction(hexValue);
+            WalletLog.d(TAG, "Sent nonce {} from {}: {}", nonce, from, transactionHash);
+            return transactionHash;
+        } catch (IOException e) {
+            // 广播失败，下次发送重新从链上同步 nonce
+            nonceManager.reset(from);
+            throw e;
+        }
+    }
+
+    /**
+     * 本地没有记录时从链上 pending 交易数同步 nonce
+     */
+    private void syncNonce(String from) throws IOException {
+        if (nonceManager.isTracked(from)) {
+            return;
+        }
+        String[] results = batchClient.sendForStrings(Collections.singletonList(
+                new JsonRpcBatchClient.Request("eth_getTransactionCount", from, "pending")));
+        if (results[0] == null) {
+            throw new IOException("eth_getTransactionCount failed: " + from);
+        }
+        nonceManager.sync(from, Numeric.decodeQuantity(results[0]));
+    }
+
+    /**
+     * 广播已签名交易，节点返回错误时带上错误信息抛出
+     */
+    String sendRawTransaction(String hexValue) throws IOException {
+        final String[] transactionHash = new String[1];
+        final String[] error = new String[1];
+        batchClient.send(Collections.singletonList(new JsonRpcBatchClient.Request("eth_sendRawTransaction", hexValue)),
+                new JsonRpcBatchClient.ResultHandler() {
+                    @Override
+                    public void onResult(int index, JsonParser parser) throws IOException {
+                        transactionHash[0] = parser.getText();
+                    }
+
+                    @Override
+                    public void onError(int index, int code, String message) {
+                        error[0] = code + " " + message;
+                    }
+                });
+        if (transactionHash[0] == null) {
+            throw new IOException("eth_sendRawTransaction failed: " + error[0]);
+        }
+        return transactionHash[0];
+    }
+
+    /**
+     * 预留的 nonce 区间起点及对应的链 ID 和手续费
+     */
+    public static class Reservation {
+        public final BigInteger firstNonce;
+        public final long chainId;
+        public final FeeOracle.Fees fees;
+
+        Reservation(BigInteger firstNonce, long chainId, FeeOracle.Fees fees) {
+            this.firstNonce = firstNonce;
+            this.chainId = chainId;
+            this.fees = fees;
+        }
+    }
+
+    public interface SendListener {
+        void onSent(String transactionHash);
+
+        void onFailure(Exception e);
+    }
+}
@@ -0,0 +1,382 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 转账历史增量索引
+ * 用 eth_getLogs 按 Transfer 事件的 from/to 主题查询跟踪地址的 ERC-20 转账，
+ * 地址按每个过滤器 MAX_TOPIC_ADDRESSES 个分组，转出、转入的全部过滤器合并为一次 JSON-RPC 批量请求；
+ * 每扫描完一个区块窗口即写入 HistoryStore 作为检查点，中断后从检查点继续
+ * 原生 ETH 转账不产生日志，只对最近 blockScanDepth 个区块按区块内容扫描，且只在所有地址进度一致时扫描，
+ * 每个区块最多读取一次；新加入的地址先只按日志追赶到已有进度，追赶范围内的原生转账不补扫
+ */
+public class TransferHistoryIndexer {
+
+    private static final String TAG = "TransferHistoryIndexer";
+
+    // Transfer(address,address,uint256)
+    static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    // 只索引已确认的区块，避免处理链重组
+    public static final int CONFIRMATIONS = 12;
+
+    // 新跟踪的地址默认回溯的区块数
+    public static final long DEFAULT_LOOKBACK = 100_000;
+
+    // 单个过滤器的地址主题数，部分节点对主题数组长度有限制
+    private static final int MAX_TOPIC_ADDRESSES = 50;
+
+    // 区块窗口大小，节点返回错误（结果过多、超时）时减半，成功时加倍
+    private static final long INITIAL_WINDOW = 5_000;
+    private static final long MIN_WINDOW = 16;
+    private static final long MAX_WINDOW = 100_000;
+
+    private static final int DEFAULT_BLOCK_SCAN_DEPTH = 1_000;
+
+    private final JsonRpcBatchClient batchClient;
+    private final HistoryStore store;
+    // 代币合约地址过滤，null 表示所有合约
+    private final List<String> tokens;
+    private final int blockScanDepth;
+
+    private long window = INITIAL_WINDOW;
+
+    public TransferHistoryIndexer(JsonRpcBatchClient batchClient, HistoryStore store, List<String> tokens) {
+        this(batchClient, store, tokens, DEFAULT_BLOCK_SCAN_DEPTH);
+    }
+
+    /**
+     * @param blockScanDepth 扫描原生 ETH 转账的最近区块数，0 表示不扫描
+     */
+    public TransferHistoryIndexer(JsonRpcBatchClient batchClient, HistoryStore store, List<String> tokens,
+                                  int blockScanDepth) {
+        this.batchClient = batchClient;
+        this.store = store;
+        this.tokens = tokens == null ? null : new ArrayList<>(tokens);
+        this.blockScanDepth = blockScanDepth;
+    }
+
+    /**
+     * 跟踪地址，从 startBlock 开始索引；已跟踪的地址保持原有进度
+     */
+    public void track(Collection<String> addresses, long startBlock) throws IOException {
+        for (String address : addresses) {
+            store.track(address, Math.max(0, startBlock - 1));
+        }
+    }
+
+    /**
+     * 同步到最新的已确认区块，需在后台线程调用
+     * 进度不同的地址先各自追赶到一起，再合并成一组扫描，每个区块范围只查询一次
+     * @return 新写入的转账记录数
+     */
+    public synchronized int sync() throws IOException {
+        List<String> addresses = store.getAddresses();
+        if (addresses.isEmpty()) {
+            return 0;
+        }
+        long target = blockNumber() - CONFIRMATIONS;
+        int before = store.size();
+        while (true) {
+            long from = Long.MAX_VALUE;
+            long lead = Long.MIN_VALUE;
+            for (String address : addresses) {
+                long synced = store.getSyncedBlock(address);
+                from = Math.min(from, synced);
+                lead = Math.max(lead, synced);
+            }
+            if (from >= target) {
+                break;
+            }
+            // 本组最多扫描到下一组的进度，之后两组合并
+            long next = target;
+            for (String address : addresses) {
+                long synced = store.getSyncedBlock(address);
+                if (synced > from) {
+                    next = Math.min(next, synced);
+                }
+            }
+            List<String> group = new ArrayList<>();
+            for (String address : addresses) {
+                if (store.getSyncedBlock(address) == from) {
+                    group.add(address);
+                }
+            }
+            // 落后的组只查日志追赶，全部地址合并为一组后才读取区块扫描原生转账
+            scanWindow(group, from + 1, Math.min(next, from + window), target, from == lead);
+        }
+        int added = store.size() - before;
+        WalletLog.d(TAG, "History synced to {}, {} new transfers", target, added);
+        return added;
+    }
+
+    /**
+     * 扫描一个窗口并提交，失败时缩小窗口重试
+     *  @param scanEther 是否同时扫描原生 ETH 转账（group 包含所有跟踪地址时）
+     */
+    private void scanWindow(List<String> group, long fromBlock, long toBlock, long target, boolean scanEther)
+            throws IOException {
+        Map<Long, HistoryStore.Transfer> transfers = new TreeMap<>();
+        try {
+            getTransferLogs(group, fromBlock, toBlock, transfers);
+            if (scanEther && blockScanDepth > 0 && toBlock > target - blockScanDepth) {
+                getEtherTransfers(group, Math.max(fromBlock, target - blockScanDepth + 1), toBlock, transfers);
+            }
+        } catch (IOException e) {
+            if (window <= MIN_WINDOW) {
+                throw e;
+            }
+            window = Math.max(MIN_WINDOW, window / 2);
+            WalletLog.w(TAG, "Scan history failed, window shrinks to {}", window);
+            return;
+        }
+        store.commit(new ArrayList<>(transfers.values()), group, toBlock);
+        if (toBlock - fromBlock + 1 >= window) {
+            window = Math.min(MAX_WINDOW, window * 2);
+        }
+    }
+
+    private void getTransferLogs(List<String> group, long fromBlock, long toBlock,
+                                 final Map<Long, HistoryStore.Transfer> transfers) throws IOException {
+        String from = Numeric.encodeQuantity(BigInteger.valueOf(fromBlock));
+        String to = Numeric.encodeQuantity(BigInteger.valueOf(toBlock));
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>();
+        for (int i = 0; i < group.size(); i += MAX_TOPIC_ADDRESSES) {
+            List<String> topics = new ArrayList<>();
+            for (String address : group.subList(i, Math.min(i + MAX_TOPIC_ADDRESSES, group.size()))) {
+                topics.add(addressTopic(address));
+            }
+            // 转出：topic1 为跟踪地址；转入：topic2 为跟踪地址
+            requests.add(new JsonRpcBatchClient.Request("eth_getLogs",
+                    logFilter(from, to, Collections.singletonList(TRANSFER_TOPIC), topics)));
+            requests.add(new JsonRpcBatchClient.Request("eth_getLogs",
+                    logFilter(from, to, Collections.singletonList(TRANSFER_TOPIC), null, topics)));
+        }
+        final IOException[] error = new IOException[1];
+        batchClient.sendChunked(requests, JsonRpcBatchClient.DEFAULT_CHUNK_SIZE,
+                new JsonRpcBatchClient.ResultHandler() {
+                    @Override
+                    public void onResult(int index, JsonParser parser) throws IOException {
+                        parseLogs(parser, transfers);
+                    }
+
+                    @Override
+                    public void onError(int index, int code, String message) {
+                        error[0] = new IOException("eth_getLogs failed: " + code + " " + message);
+                    }
+                });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    private Map<String, Object> logFilter(String fromBlock, String toBlock, Object... topics) {
+        Map<String, Object> filter = new LinkedHashMap<>();
+        filter.put("fromBlock", fromBlock);
+        filter.put("toBlock", toBlock);
+        if (tokens != null) {
+            filter.put("address", tokens);
+        }
+        List<Object> topicList = new ArrayList<>(topics.length);
+        Collections.addAll(topicList, topics);
+        filter.put("topics", topicList);
+        return filter;
+    }
+
+    /**
+     * 流式解析日志数组，不建立 JSON 树
+     */
+    private void parseLogs(JsonParser parser, Map<Long, HistoryStore.Transfer> transfers) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        synchronized (transfers) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String token = null;
+                String data = null;
+                String hash = null;
+                long block = -1;
+                int logIndex = -1;
+                boolean removed = false;
+                List<String> topics = new ArrayList<>(3);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "address":
+                            token = parser.getText();
+                            break;
+                        case "topics":
+                            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                                topics.add(parser.getText());
+                            }
+                            break;
+                        case "data":
+                            data = parser.getText();
+                            break;
+                        case "blockNumber":
+                            block = Numeric.decodeQuantity(parser.getText()).longValue();
+                            break;
+                        case "transactionHash":
+                            hash = parser.getText();
+                            break;
+                        case "logIndex":
+                            logIndex = Numeric.decodeQuantity(parser.getText()).intValue();
+                            break;
+                        case "removed":
+                            removed = parser.getBooleanValue();
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                }
+                // ERC-721 的 Transfer 有3个 indexed 参数（4个主题），不是代币转账
+                if (removed || topics.size() != 3 || token == null || hash == null || block < 0) {
+                    continue;
+                }
+                BigInteger value = data == null || Numeric.cleanHexPrefix(data).isEmpty()
+                        ? BigInteger.ZERO : Numeric.toBigInt(data);
+                put(transfers, new HistoryStore.Transfer(block, logIndex, hash, token,
+                        topicAddress(topics.get(1)), topicAddress(topics.get(2)), value));
+            }
+        }
+    }
+
+    /**
+     * 逐个区块读取完整交易，找出跟踪地址的原生 ETH 转账
+     */
+    private void getEtherTransfers(List<String> group, long fromBlock, long toBlock,
+                                   final Map<Long, HistoryStore.Transfer> transfers) throws IOException {
+        final AddressSet owned = new AddressSet(group.size());
+        for (String address : group) {
+            owned.add(address);
+        }
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>();
+        for (long block = fromBlock; block <= toBlock; block++) {
+            requests.add(new JsonRpcBatchClient.Request("eth_getBlockByNumber",
+                    Numeric.encodeQuantity(BigInteger.valueOf(block)), true));
+        }
+        final IOException[] error = new IOException[1];
+        batchClient.sendChunked(requests, JsonRpcBatchClient.DEFAULT_CHUNK_SIZE,
+                new JsonRpcBatchClient.ResultHandler() {
+                    @Override
+                    public void onResult(int index, JsonParser parser) throws IOException {
+                        parseBlock(parser, owned, transfers);
+                    }
+
+                    @Override
+                    public void onError(int index, int code, String message) {
+                        error[0] = new IOException("eth_getBlockByNumber failed: " + code + " " + message);
+                    }
+                });
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    private void parseBlock(JsonParser parser, AddressSet owned, Map<Long, HistoryStore.Transfer> transfers)
+            throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        List<HistoryStore.Transfer> found = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!"transactions".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String hash = null;
+                String from = null;
+                String to = null;
+                BigInteger value = BigInteger.ZERO;
+                long block = -1;
+                int txIndex = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String txField = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (txField) {
+                        case "hash":
+                            hash = parser.getText();
+                            break;
+                        case "from":
+                            from = parser.getText();
+                            break;
+                        case "to":
+                            // 合约创建交易的 to 为 null
+                            to = parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+                            break;
+                        case "value":
+                            value = Numeric.decodeQuantity(parser.getText());
+                            break;
+                        case "blockNumber":
+                            block = Numeric.decodeQuantity(parser.getText()).longValue();
+                            break;
+                        case "transactionIndex":
+                            txIndex = Numeric.decodeQuantity(parser.getText()).intValue();
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                }
+                if (to == null || hash == null || block < 0 || value.signum() == 0) {
+                    continue;
+                }
+                if (owned.contains(from) || owned.contains(to)) {
+                    found.add(new HistoryStore.Transfer(block, -1 - txIndex, hash, null, from, to, value));
+                }
+            }
+        }
+        synchronized (transfers) {
+            for (HistoryStore.Transfer transfer : found) {
+                put(transfers, transfer);
+            }
+        }
+    }
+
+    /**
+     * 以 (区块, 序号) 为键：同时是转出和转入（两个跟踪地址之间）的日志只保留一条，并保证写入顺序
+     * 原生转账排在同一区块的日志之后，按交易序号排序
+     */
+    private static void put(Map<Long, HistoryStore.Transfer> transfers, HistoryStore.Transfer transfer) {
+        long order = transfer.logIndex >= 0 ? transfer.logIndex : 0x80000000L + (-1 - transfer.logIndex);
+        transfers.put((transfer.blockNumber << 32) | order, transfer);
+    }
+
+    private long blockNumber() throws IOException {
+        String[] result = batchClient.sendForStrings(
+                Collections.singletonList(new JsonRpcBatchClient.Request("eth_blockNumber")));
+        if (result[0] == null) {
+            throw new IOException("eth_blockNumber failed");
+        }
+        return Numeric.decodeQuantity(result[0]).longValue();
+    }
+
+    private static String addressTopic(String address) {
+        return Constants.HEX_PREFIX + "000000000000000000000000" + Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+
+    private static String topicAddress(String topic) {
+        String hex = Numeric.cleanHexPrefix(topic);
+        return hex.substring(hex.length() - 40).toLowerCase();
+    }
+}
@@ -0,0 +1,185 @@
+package com.hux.testwallet;
+
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已解锁私钥的会话缓存
+ * 按地址保存解密后的私钥，超过有效期或空闲超时后失效，避免每次签名都重新执行 scrypt
+ * 私钥以 byte[] 保存，失效或锁定时清零；每次取出时临时构建 Credentials
+ * 在最近的失效时间点由共享定时器主动清零，不依赖下一次访问
+ */
+public class UnlockSession {
+
+    private static final int PRIVATE_KEY_SIZE = 32;
+
+    private long ttlMillis;
+    private long idleTimeoutMillis;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // 下一次清理任务，受 this 保护
+    private ScheduledFuture<?> wipeTask;
+    private long wipeAt = Long.MAX_VALUE;
+
+    private final Runnable wipeExpired = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (UnlockSession.this) {
+                wipeTask = null;
+                wipeAt = Long.MAX_VALUE;
+                long now = System.currentTimeMillis();
+                evictExpired(now);
+                scheduleWipe(now);
+            }
+        }
+    };
+
+    /**
+     * @param ttlMillis         解锁后的最长有效期，<=0 表示不限制
+     * @param idleTimeoutMillis 空闲超时，<=0 表示不限制
+     */
+    public UnlockSession(long ttlMillis, long idleTimeoutMillis) {
+        this.ttlMillis = ttlMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public synchronized void setTimeouts(long ttlMillis, long idleTimeoutMillis) {
+        this.ttlMillis = ttlMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        cancelWipe();
+        scheduleWipe(now);
+    }
+
+    /**
+     * 获取已解锁的 Credentials，未解锁或已过期返回 null
+     */
+    public synchronized Credentials get(String address) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        Entry entry = entries.get(normalize(address));
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = now;
+        // 空闲超时从本次访问重新计算，已安排的清理提前触发时会按新的时间重新安排
+        scheduleWipe(now);
+        ECKeyPair ecKeyPair = new ECKeyPair(new BigInteger(1, entry.privateKey), entry.publicKey);
+        return Credentials.create(ecKeyPair);
+    }
+
+    /**
+     * 保存解密后的密钥对
+     */
+    public synchronized void put(String address, ECKeyPair ecKeyPair) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(Numeric.toBytesPadded(ecKeyPair.getPrivateKey(), PRIVATE_KEY_SIZE),
+                ecKeyPair.getPublicKey(), now);
+        Entry old = entries.put(normalize(address), entry);
+        if (old != null) {
+            old.wipe();
+        }
+        scheduleWipe(now);
+    }
+
+    /**
+     * 锁定单个地址
+     */
+    public synchronized void evict(String address) {
+        Entry entry = entries.remove(normalize(address));
+        if (entry != null) {
+            entry.wipe();
+        }
+    }
+
+    /**
+     * 锁定所有地址，清零私钥
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.wipe();
+        }
+        entries.clear();
+        cancelWipe();
+    }
+
+    /**
+     * 在最早的失效时间点安排一次清理；已安排的清理不晚于该时间点时保持不变
+     */
+    private void scheduleWipe(long now) {
+        long deadline = Long.MAX_VALUE;
+        for (Entry entry : entries.values()) {
+            deadline = Math.min(deadline, deadline(entry));
+        }
+        if (deadline == Long.MAX_VALUE || deadline >= wipeAt) {
+            return;
+        }
+        cancelWipe();
+        wipeAt = deadline;
+        wipeTask = WalletExecutors.getInstance().scheduler().schedule(wipeExpired,
+                Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelWipe() {
+        if (wipeTask != null) {
+            wipeTask.cancel(false);
+            wipeTask = null;
+        }
+        wipeAt = Long.MAX_VALUE;
+    }
+
+    private long deadline(Entry entry) {
+        long deadline = Long.MAX_VALUE;
+        if (ttlMillis > 0) {
+            deadline = entry.unlockedAt + ttlMillis;
+        }
+        if (idleTimeoutMillis > 0) {
+            deadline = Math.min(deadline, entry.lastAccess + idleTimeoutMillis);
+        }
+        return deadline;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now >= deadline(entry)) {
+                entry.wipe();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String normalize(String address) {
+        return Numeric.cleanHexPrefix(address).toLowerCase();
+    }
+
+    private static class Entry {
+        final byte[] privateKey;
+        final BigInteger publicKey;
+        final long unlockedAt;
+        long lastAccess;
+
+        Entry(byte[] privateKey, BigInteger publicKey, long unlockedAt) {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.unlockedAt = unlockedAt;
+            this.lastAccess = unlockedAt;
+        }
+
+        void wipe() {
+            Arrays.fill(privateKey, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com.hux.testwallet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 钱包后台任务执行层
+ * CPU 密集的加解密/派生与 IO（RPC、磁盘）分开排队，慢 RPC 不会阻塞排在后面的派生；
+ * 任务可绑定 owner（如 Activity），owner 销毁时统一取消；相同 key 的并发请求合并为一次执行；
+ * 统计每个线程池的排队数、排队等待和执行耗时
+ */
+public class WalletExecutors {
+
+    private static final String TAG = "WalletExecutors";
+
+    private static final int CPU_QUEUE_CAPACITY = 256;
+    private static final int IO_POOL_SIZE = 4;
+    private static final int IO_QUEUE_CAPACITY = 512;
+
+    public enum Pool {
+        CPU, IO
+    }
+
+    private static volatile WalletExecutors instance;
+
+    private final ThreadPoolExecutor cpuPool;
+    private final ThreadPoolExecutor ioPool;
+    // 定时触发用的单个守护线程，任务本身应很快或转交 CPU/IO 池执行
+    private final ScheduledThreadPoolExecutor timer;
+    private final Stats cpuStats = new Stats();
+    private final Stats ioStats = new Stats();
+
+    private final Executor cpuExecutor;
+    private final Executor ioExecutor;
+
+    // owner → 未完成的任务
+    private final ConcurrentHashMap<Object, Set<Task<?>>> ownedTasks = new ConcurrentHashMap<>();
+    // 合并 key → 未完成的任务
+    private final ConcurrentHashMap<String, Task<?>> keyedTasks = new ConcurrentHashMap<>();
+
+    private WalletExecutors() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        cpuPool = new ThreadPoolExecutor(cores, cores, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(CPU_QUEUE_CAPACITY), new NamedThreadFactory("wallet-cpu"));
+        ioPool = new ThreadPoolExecutor(IO_POOL_SIZE, IO_POOL_SIZE, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(IO_QUEUE_CAPACITY), new NamedThreadFactory("wallet-io"));
+        cpuPool.allowCoreThreadTimeOut(true);
+        ioPool.allowCoreThreadTimeOut(true);
+        timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("wallet-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        cpuExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submit(Pool.CPU, null, null, command);
+            }
+        };
+        ioExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submit(Pool.IO, null, null, command);
+            }
+        };
+    }
+
+    public static WalletExecutors getInstance() {
+        if (instance == null) {
+            synchronized (WalletExecutors.class) {
+                if (instance == null) {
+                    instance = new WalletExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * CPU 密集任务：签名、解密 KeyStore、密钥派生
+     */
+    public CompletableFuture<Void> runCpu(Object owner, Runnable task) {
+        return submit(Pool.CPU, owner, null, task);
+    }
+
+    /**
+     * IO 任务：RPC 请求、读写文件
+     */
+    public CompletableFuture<Void> runIo(Object owner, Runnable task) {
+        return submit(Pool.IO, owner, null, task);
+    }
+
+    /**
+     * 提交无返回值的任务
+     *  @param owner 任务归属，cancelAll(owner) 时取消，可为 null
+     *  @param key   合并 key，已有同 key 的任务未完成时直接返回该任务，可为 null
+     */
+    public CompletableFuture<Void> submit(Pool pool, Object owner, String key, final Runnable task) {
+        return submit(pool, owner, key, new Callable<Void>() {
+            @Override
+            public Void call() {
+                task.run();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 提交有返回值的任务，参数同上；合并时返回已有任务的 future
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(Pool pool, Object owner, String key, Callable<T> callable) {
+        Stats stats = stats(pool);
+        Task<T> task = new Task<>(pool, owner, key, callable);
+        if (key != null) {
+            Task<?> existing = keyedTasks.putIfAbsent(key, task);
+            if (existing != null) {
+                stats.coalesced.incrementAndGet();
+                return (CompletableFuture<T>) existing.future;
+            }
+        }
+        if (owner != null) {
+            Set<Task<?>> tasks = ownedTasks.get(owner);
+            if (tasks == null) {
+                Set<Task<?>> created = Collections.newSetFromMap(new ConcurrentHashMap<Task<?>, Boolean>());
+                tasks = ownedTasks.putIfAbsent(owner, created);
+                if (tasks == null) {
+                    tasks = created;
+                }
+            }
+            tasks.add(task);
+        }
+        stats.submitted.incrementAndGet();
+        try {
+            executor(pool).execute(task);
+        } catch (RejectedExecutionException e) {
+            stats.rejected.incrementAndGet();
+            WalletLog.w(TAG, "{} queue full, rejecting task", pool);
+            task.finish();
+            task.finished.complete(null);
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * 取消 owner 的所有未完成任务：排队中的移出队列，执行中的中断线程
+     */
+    public CompletableFuture<Void> cancelAll(Object owner) {
+        return cancelAll(owner, true);
+    }
+
+    /**
+     * 取消 owner 的所有未完成任务，排队中的移出队列；interrupt 为 false 时不中断执行中的任务，
+     * 避免中断 FileChannel 读写（会关闭通道），任务的 future 仍立即以取消结束
+     * 返回的 future 在执行中的任务真正结束后完成，之后才能关闭这些任务用到的资源
+     */
+    public CompletableFuture<Void> cancelAll(Object owner, boolean interrupt) {
+        Set<Task<?>> tasks = ownedTasks.remove(owner);
+        if (tasks == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] finished = new CompletableFuture<?>[tasks.size()];
+        int i = 0;
+        for (Task<?> task : tasks) {
+            task.cancel(interrupt);
+            if (i < finished.length) {
+                finished[i++] = task.finished;
+            }
+        }
+        return CompletableFuture.allOf(i == finished.length ? finished : Arrays.copyOf(finished, i));
+    }
+
+    /**
+     * 供 CompletableFuture 等 API 使用的执行器，任务计入统计但不绑定 owner
+     */
+    public Executor cpuExecutor() {
+        return cpuExecutor;
+    }
+
+    public Executor ioExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * 新建一个串行执行器：任务按提交顺序逐个在 IO 池中执行，不占用专属线程
+     */
+    public SerialExecutor newSerialExecutor() {
+        return new SerialExecutor();
+    }
+
+    /**
+     * 共享的定时器，用于轮询、超时清理等定时触发；不要在其中执行阻塞的 RPC 或磁盘操作
+     */
+    public ScheduledExecutorService scheduler() {
+        return timer;
+    }
+
+    /**
+     * 线程池当前状态
+     */
+    public PoolStats getStats(Pool pool) {
+        ThreadPoolExecutor executor = executor(pool);
+        return stats(pool).snapshot(pool, executor.getQueue().size(), executor.getActiveCount());
+    }
+
+    public void logStats() {
+        WalletLog.d(TAG, "{}\n{}", getStats(Pool.CPU), getStats(Pool.IO));
+    }
+
+    private ThreadPoolExecutor executor(Pool pool) {
+        return pool == Pool.CPU ? cpuPool : ioPool;
+    }
+
+    private Stats stats(Pool pool) {
+        return pool == Pool.CPU ? cpuStats : ioStats;
+    }
+
+    /**
+     * 单个任务，记录入队时间，执行时记录所在线程以便取消时中断
+     */
+    private class Task<T> implements Runnable {
+        final Pool pool;
+        final Object owner;
+        final String key;
+        final Callable<T> callable;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        // 任务不会再执行或已执行结束时完成，与 future 是否被取消无关
+        final CompletableFuture<Void> finished = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        // 受 this 保护
+        private Thread runner;
+        private boolean cancelled;
+
+        Task(Pool pool, Object owner, String key, Callable<T> callable) {
+            this.pool = pool;
+            this.owner = owner;
+            this.key = key;
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            Stats stats = stats(pool);
+            long startedAt = System.nanoTime();
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            stats.recordWait(startedAt - enqueuedAt);
+            T result = null;
+            Throwable failure = null;
+            boolean interrupted = false;
+            try {
+                result = callable.call();
+            } catch (Throwable e) {
+                failure = e;
+                interrupted = Thread.currentThread().isInterrupted();
+            }
+            stats.recordRun(System.nanoTime() - startedAt);
+            synchronized (this) {
+                runner = null;
+                // 清除中断标记，避免影响线程池中的下一个任务
+                Thread.interrupted();
+            }
+            // 先移除 key 再完成 future，回调中提交的同 key 任务不会合并到已结束的任务上
+            finish();
+            finished.complete(null);
+            if (failure == null) {
+                stats.completed.incrementAndGet();
+                future.complete(result);
+            } else if (future.isCancelled() || interrupted) {
+                future.cancel(false);
+            } else {
+                stats.failed.incrementAndGet();
+                WalletLog.e(TAG, "Task failed" + (key == null ? "" : ": " + key), failure);
+                future.completeExceptionally(failure);
+            }
+        }
+
+        void cancel(boolean interrupt) {
+            synchronized (this) {
+                if (cancelled || future.isDone()) {
+                    return;
+                }
+                cancelled = true;
+                if (runner == null) {
+                    // 还没开始，run() 看到 cancelled 后直接返回
+                    finished.complete(null);
+                } else if (interrupt) {
+                    runner.interrupt();
+                }
+            }
+            executor(pool).remove(this);
+            stats(pool).cancelled.incrementAndGet();
+            finish();
+            future.completeExceptionally(new CancellationException("Owner cancelled"));
+        }
+
+        void finish() {
+            if (key != null) {
+                keyedTasks.remove(key, this);
+            }
+            if (owner != null) {
+                Set<Task<?>> tasks = ownedTasks.get(owner);
+                if (tasks != null) {
+                    tasks.remove(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在 IO 池上串行执行的队列，同一时刻最多占用一个 IO 线程
+     * IO 池队列满时稍后重试提交，不会在调用线程上执行
+     */
+    public class SerialExecutor implements Executor {
+        private static final long RETRY_DELAY_MILLIS = 100;
+
+        // 受 this 保护
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean active;
+        private boolean shutdown;
+
+        private final Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                Runnable task;
+                synchronized (SerialExecutor.this) {
+                    task = tasks.poll();
+                }
+                try {
+                    if (task != null) {
+                        task.run();
+                    }
+                } finally {
+                    synchronized (SerialExecutor.this) {
+                        if (tasks.isEmpty()) {
+                            active = false;
+                        } else {
+                            scheduleNext();
+                        }
+                    }
+                }
+            }
+        };
+
+        private final Runnable retry = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (SerialExecutor.this) {
+                    scheduleNext();
+                }
+            }
+        };
+
+        SerialExecutor() {
+        }
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Serial executor shut down");
+            }
+            tasks.add(command);
+            if (!active) {
+                active = true;
+                scheduleNext();
+            }
+        }
+
+        /**
+         * 不再接受新任务，已排队的任务继续按顺序执行
+         */
+        public synchronized void shutdown() {
+            shutdown = true;
+        }
+
+        // 调用方持有 this
+        private void scheduleNext() {
+            ioStats.submitted.incrementAndGet();
+            try {
+                ioPool.execute(new Task<>(Pool.IO, null, null, Executors.callable(drain)));
+            } catch (RejectedExecutionException e) {
+                ioStats.rejected.incrementAndGet();
+                timer.schedule(retry, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 线程池累计统计
+     */
+    private static class Stats {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong totalRunNanos = new AtomicLong();
+        final AtomicLong maxRunNanos = new AtomicLong();
+
+        void recordWait(long nanos) {
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(nanos);
+            updateMax(maxWaitNanos, nanos);
+        }
+
+        void recordRun(long nanos) {
+            totalRunNanos.addAndGet(nanos);
+            updateMax(maxRunNanos, nanos);
+        }
+
+        PoolStats snapshot(Pool pool, int queueDepth, int active) {
+            long count = Math.max(1, started.get());
+            return new PoolStats(pool, queueDepth, active, submitted.get(), completed.get(), failed.get(),
+                    cancelled.get(), rejected.get(), coalesced.get(),
+                    totalWaitNanos.get() / count / 1000000.0, maxWaitNanos.get() / 1000000.0,
+                    totalRunNanos.get() / count / 1000000.0, maxRunNanos.get() / 1000000.0);
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // 重试
+            }
+        }
+    }
+
+    /**
+     * 线程池状态快照，耗时单位为毫秒
+     */
+    public static class PoolStats {
+        public final Pool pool;
+        public final int queueDepth;
+        public final int active;
+        public final long submitted;
+        public final long completed;
+        public final long failed;
+        public final long cancelled;
+        public final long rejected;
+        public final long coalesced;
+        public final double avgWaitMillis;
+        public final double maxWaitMillis;
+        public final double avgRunMillis;
+        public final double maxRunMillis;
+
+        PoolStats(Pool pool, int queueDepth, int active, long submitted, long completed, long failed,
+                  long cancelled, long rejected, long coalesced, double avgWaitMillis, double maxWaitMillis,
+                  double avgRunMillis, double maxRunMillis) {
+            this.pool = pool;
+            this.queueDepth = queueDepth;
+            this.active = active;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.rejected = rejected;
+            this.coalesced = coalesced;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.avgRunMillis = avgRunMillis;
+            this.maxRunMillis = maxRunMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s{queue=%d, active=%d, submitted=%d, completed=%d, failed=%d, cancelled=%d, rejected=%d,"
+                            + " coalesced=%d, wait avg/max=%.1f/%.1fms, run avg/max=%.1f/%.1fms}",
+                    pool, queueDepth, active, submitted, completed, failed, cancelled, rejected,
+                    coalesced, avgWaitMillis, maxWaitMillis, avgRunMillis, maxRunMillis);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hux.testwallet;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 钱包核心使用的日志入口，输出到当前安装的 WalletLogger，默认输出到 java.util.logging
+ * 低于最小级别的日志直接返回；默认最小级别为 INFO，与 java.util.logging 默认输出的级别一致，
+ * 非 Android 环境下 d 调用不会格式化后再被丢弃（Android 上由 App 按构建类型设置）；带参数的重载使用 {} 占位符，只有在需要输出时才格式化，
+ * 热路径上关闭日志时不拼接字符串、不调用参数的 toString
+ * release 构建中 d/i 调用由 R8 整体移除（见 app/proguard-rules.pro）
+ */
+public final class WalletLog {
+
+    private static volatile WalletLogger logger = new JulLogger();
+
+    private static volatile int minLevel = WalletLogger.INFO;
+
+    private WalletLog() {
+    }
+
+    /**
+     * 安装日志实现，传入 null 时不输出任何日志
+     */
+    public static void setLogger(WalletLogger walletLogger) {
+        logger = walletLogger;
+    }
+
+    /**
+     * 设置输出的最小级别
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel && logger != null;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isLoggable(WalletLogger.DEBUG);
+    }
+
+    public static void d(String tag, String message) {
+        if (isLoggable(WalletLogger.DEBUG)) {
+            log(WalletLogger.DEBUG, tag, message, null);
+        }
+    }
+
+    public static void d(String tag, String message, Throwable throwable) {
+        if (isLoggable(WalletLogger.DEBUG)) {
+            log(WalletLogger.DEBUG, tag, message, throwable);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (isLoggable(WalletLogger.DEBUG)) {
+            log(WalletLogger.DEBUG, tag, format(format, arg), null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(WalletLogger.DEBUG)) {
+            log(WalletLogger.DEBUG, tag, format(format, arg1, arg2), null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(WalletLogger.DEBUG)) {
+            log(WalletLogger.DEBUG, tag, format(format, arg1, arg2, arg3), null);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (isLoggable(WalletLogger.INFO)) {
+            log(WalletLogger.INFO, tag, message, null);
+        }
+    }
+
+    public static void i(String tag, String message, Throwable throwable) {
+        if (isLoggable(WalletLogger.INFO)) {
+            log(WalletLogger.INFO, tag, message, throwable);
+        }
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (isLoggable(WalletLogger.INFO)) {
+            log(WalletLogger.INFO, tag, format(format, arg), null);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        w(tag, message, (Throwable) null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        if (isLoggable(WalletLogger.WARN)) {
+            log(WalletLogger.WARN, tag, message, throwable);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (isLoggable(WalletLogger.WARN)) {
+            log(WalletLogger.WARN, tag, format(format, arg), null);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(WalletLogger.WARN)) {
+            log(WalletLogger.WARN, tag, format(format, arg1, arg2), null);
+        }
+    }
+
+    public static void e(String tag, String message) {
+        e(tag, message, (Throwable) null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        if (isLoggable(WalletLogger.ERROR)) {
+            log(WalletLogger.ERROR, tag, message, throwable);
+        }
+    }
+
+    public static void e(String tag, String format, Object arg, Throwable throwable) {
+        if (isLoggable(WalletLogger.ERROR)) {
+            log(WalletLogger.ERROR, tag, format(format, arg), throwable);
+        }
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2, Throwable throwable) {
+        if (isLoggable(WalletLogger.ERROR)) {
+            log(WalletLogger.ERROR, tag, format(format, arg1, arg2), throwable);
+        }
+    }
+
+    private static void log(int level, String tag, String message, Throwable throwable) {
+        WalletLogger current = logger;
+        if (current != null) {
+            current.log(level, tag, message, throwable);
+        }
+    }
+
+    /**
+     * 依次用参数替换 {} 占位符，多余的占位符原样保留
+     */
+    static String format(String format, Object... args) {
+        StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int placeholder = format.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            builder.append(format, start, placeholder).append(arg);
+            start = placeholder + 2;
+        }
+        return builder.append(format, start, format.length()).toString();
+    }
+
+    /**
+     * 非 Android 环境的默认实现
+     */
+    static class JulLogger implements WalletLogger {
+        @Override
+        public void log(int level, String tag, String message, Throwable throwable) {
+            Logger.getLogger(tag).log(toJulLevel(level), message, throwable);
+        }
+
+        private static Level toJulLevel(int level) {
+            switch (level) {
+                case ERROR:
+                    return Level.SEVERE;
+                case WARN:
+                    return Level.WARNING;
+                case INFO:
+                    return Level.INFO;
+                default:
+                    return Level.FINE;
+            }
+        }
+    }
+}
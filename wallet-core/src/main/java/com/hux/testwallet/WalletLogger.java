@@ -0,0 +1,19 @@
+package com.hux.testwallet;
+
+/**
+ * 钱包核心的日志输出接口，Android 上由 app 安装基于 android.util.Log 的实现，
+ * 服务端可接入任意日志框架
+ */
+public interface WalletLogger {
+
+    int DEBUG = 3;
+    int INFO = 4;
+    int WARN = 5;
+    int ERROR = 6;
+
+    /**
+     * @param level     DEBUG / INFO / WARN / ERROR
+     * @param throwable 可为 null
+     */
+    void log(int level, String tag, String message, Throwable throwable);
+}
@@ -0,0 +1,16 @@
+package com.hux.testwallet;
+
+import java.io.File;
+
+/**
+ * 钱包核心的存储位置接口，KeyStore 目录等都从这里获取
+ * Android 上对应 Context.getDir，服务端可使用 FileWalletStorage
+ * 指向同一存储位置的实例应 equals，EthWalletController 据此合并对同一位置的并发加载
+ */
+public interface WalletStorage {
+
+    /**
+     * 返回名为 name 的私有目录，不存在时创建
+     */
+    File getDir(String name);
+}
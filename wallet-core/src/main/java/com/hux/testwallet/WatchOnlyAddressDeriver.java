@@ -0,0 +1,149 @@
+package com.hux.testwallet;
+
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDUtils;
+import org.bitcoinj.params.MainNetParams;
+import org.bouncycastle.math.ec.ECPoint;
+import org.web3j.crypto.Keys;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 只读地址派生器
+ * 只持有 m/44'/60'/0'/0 的扩展公钥（xpub），用公钥派生（CKDpub）生成收款地址，不需要助记词和私钥
+ */
+public class WatchOnlyAddressDeriver {
+
+    // 派生地址缓存容量
+    private static final int ADDRESS_CACHE_SIZE = 4096;
+
+    private static final int SPLIT_THRESHOLD = 64;
+
+    // 父节点公钥点只解压一次
+    private final ECPoint chainPoint;
+    private final byte[] chainCode;
+    private final byte[] compressedChainPub;
+
+    private final Map<Integer, String> addressCache = new LinkedHashMap<Integer, String>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > ADDRESS_CACHE_SIZE;
+        }
+    };
+
+    private WatchOnlyAddressDeriver(DeterministicKey chainPubKey) {
+        this.chainPoint = chainPubKey.getPubKeyPoint().normalize();
+        this.chainCode = chainPubKey.getChainCode();
+        this.compressedChainPub = chainPoint.getEncoded(true);
+    }
+
+    /**
+     * 从 Bip39WalletManager.exportAccountXpub 导出的 xpub 创建派生器
+     */
+    public static WatchOnlyAddressDeriver fromXpub(String xpub) {
+        DeterministicKey key = DeterministicKey.deserializeB58(xpub, MainNetParams.get());
+        return new WatchOnlyAddressDeriver(key);
+    }
+
+    /**
+     * 派生 {xpub}/{index} 的未压缩公钥（64字节，不含0x04前缀）
+     */
+    public byte[] derivePublicKey(int index) {
+        byte[] encoded = deriveChildPoint(index).getEncoded(false);
+        return Arrays.copyOfRange(encoded, 1, encoded.length);
+    }
+
+    /**
+     * 派生 {xpub}/{index} 的地址（不带0x前缀）
+     */
+    public String deriveAddress(int index) {
+        synchronized (addressCache) {
+            String cached = addressCache.get(index);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String address = Numeric.toHexStringNoPrefix(Keys.getAddress(derivePublicKey(index)));
+        synchronized (addressCache) {
+            addressCache.put(index, address);
+        }
+        return address;
+    }
+
+    /**
+     * 批量派生 [fromIndex, toIndex) 的地址（不带0x前缀），按索引顺序返回
+     */
+    public List<String> deriveAddresses(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex < fromIndex) {
+            throw new IllegalArgumentException("Invalid index range: [" + fromIndex + ", " + toIndex + ")");
+        }
+        String[] addresses = new String[toIndex - fromIndex];
+        HDDerivationContext.getDerivePool().invoke(new DeriveRangeTask(fromIndex, fromIndex, toIndex, addresses));
+        return Arrays.asList(addresses);
+    }
+
+    /**
+     * 校验地址是否为 {xpub}/{index} 派生的地址，大小写和0x前缀不敏感
+     */
+    public boolean verifyAddress(String address, int index) {
+        return Numeric.cleanHexPrefix(address).equalsIgnoreCase(deriveAddress(index));
+    }
+
+    /**
+     * 公钥派生：Ki = parse256(IL)·G + Kpar，其中 I = HMAC-SHA512(c, serP(Kpar) || ser32(i))
+     */
+    private ECPoint deriveChildPoint(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Hardened index is not supported for public derivation: " + index);
+        }
+        ByteBuffer data = ByteBuffer.allocate(compressedChainPub.length + 4);
+        data.put(compressedChainPub);
+        data.putInt(index);
+        byte[] i = HDUtils.hmacSha512(chainCode, data.array());
+        BigInteger ilInt = new BigInteger(1, Arrays.copyOfRange(i, 0, 32));
+        if (ilInt.compareTo(ECKey.CURVE.getN()) >= 0) {
+            throw new IllegalArgumentException("Invalid child index, IL >= n: " + index);
+        }
+        ECPoint childPoint = ECKey.publicPointFromPrivate(ilInt).add(chainPoint);
+        if (childPoint.isInfinity()) {
+            throw new IllegalArgumentException("Invalid child index, point at infinity: " + index);
+        }
+        return childPoint.normalize();
+    }
+
+    private class DeriveRangeTask extends RecursiveAction {
+        private final int baseIndex;
+        private final int from;
+        private final int to;
+        private final String[] addresses;
+
+        DeriveRangeTask(int baseIndex, int from, int to, String[] addresses) {
+            this.baseIndex = baseIndex;
+            this.from = from;
+            this.to = to;
+            this.addresses = addresses;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    // 批量派生不写入缓存，避免大区间把热点地址挤出
+                    addresses[i - baseIndex] = Numeric.toHexStringNoPrefix(Keys.getAddress(derivePublicKey(i)));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DeriveRangeTask(baseIndex, from, mid, addresses),
+                    new DeriveRangeTask(baseIndex, mid, to, addresses));
+        }
+    }
+}
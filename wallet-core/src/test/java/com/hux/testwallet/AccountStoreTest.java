@@ -0,0 +1,182 @@
+package com.hux.testwallet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * AccountStore 的读写往返、重新打开、写入中断后的恢复和标签截断
+ */
+public class AccountStoreTest {
+
+    private static final int[] PATH = {44 | DerivationPath.HARDENED_BIT, 60 | DerivationPath.HARDENED_BIT,
+            DerivationPath.HARDENED_BIT, 0, 0};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File storeFile;
+    private AccountStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        storeFile = new File(folder.getRoot(), "accounts.bin");
+        store = new AccountStore(storeFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void roundTripsAndReopens() throws IOException {
+        assertEquals(0, store.append(account(0, "Main")));
+        store.appendAll(Arrays.asList(account(1, null), account(2, "Savings")));
+        assertEquals(3, store.size());
+
+        store.close();
+        store = new AccountStore(storeFile);
+        assertEquals(3, store.size());
+        AccountStore.Account first = store.get(0);
+        assertEquals(0, first.index);
+        assertEquals(address(0), first.address);
+        assertArrayEquals(PATH, first.path);
+        assertEquals("Main", first.label);
+        assertNull(store.get(1).label);
+
+        List<AccountStore.Account> page = store.load(1, 10);
+        assertEquals(2, page.size());
+        assertEquals(address(2), page.get(1).address);
+        assertEquals("Savings", page.get(1).label);
+        assertTrue(store.load(3, 10).isEmpty());
+    }
+
+    @Test
+    public void normalizesAddress() throws IOException {
+        store.append(new AccountStore.Account(0, "0x" + address(0).toUpperCase(), PATH, null));
+        assertEquals(address(0), store.get(0).address);
+    }
+
+    @Test
+    public void ignoresPartialTrailingRecord() throws IOException {
+        store.appendAll(Arrays.asList(account(0, "a"), account(1, "b")));
+        store.close();
+        // 模拟第三条记录只写了一半
+        try (RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+            file.seek(file.length());
+            file.write(new byte[AccountStore.RECORD_SIZE / 2]);
+        }
+
+        store = new AccountStore(storeFile);
+        assertEquals(2, store.size());
+        assertEquals(2, store.append(account(2, "c")));
+        store.close();
+
+        store = new AccountStore(storeFile);
+        assertEquals(3, store.size());
+        assertEquals(address(2), store.get(2).address);
+        assertEquals("c", store.get(2).label);
+        assertEquals("b", store.get(1).label);
+    }
+
+    @Test
+    public void rejectsOutOfOrderIndex() throws IOException {
+        store.append(account(0, null));
+        try {
+            store.append(account(2, null));
+            fail("index gap should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            store.appendAll(Arrays.asList(account(1, null), account(3, null)));
+            fail("index gap should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertFalse(store.appendIfNext(account(0, null)));
+        assertTrue(store.appendIfNext(account(1, null)));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void rejectsForeignFile() throws IOException {
+        File other = folder.newFile("other.bin");
+        try (RandomAccessFile file = new RandomAccessFile(other, "rw")) {
+            file.write("not an account store".getBytes(StandardCharsets.US_ASCII));
+        }
+        try {
+            new AccountStore(other).close();
+            fail("foreign file should be rejected");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void truncatesLabelOnCharacterBoundary() throws IOException {
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            label.append("钱包");
+        }
+        store.append(account(0, label.toString()));
+        store.close();
+
+        store = new AccountStore(storeFile);
+        String stored = store.get(0).label;
+        assertFalse(stored.contains("�"));
+        assertTrue(label.toString().startsWith(stored));
+        // 每个汉字 3 字节，46 字节最多容纳 15 个
+        assertEquals(15, stored.length());
+    }
+
+    @Test
+    public void utf8PrefixKeepsWholeCharacters() {
+        byte[] mixed = "ab钱包".getBytes(StandardCharsets.UTF_8);
+        assertEquals(8, AccountStore.utf8Prefix(mixed, 8));
+        assertEquals(5, AccountStore.utf8Prefix(mixed, 7));
+        assertEquals(5, AccountStore.utf8Prefix(mixed, 5));
+        assertEquals(2, AccountStore.utf8Prefix(mixed, 4));
+        assertEquals(0, AccountStore.utf8Prefix("钱".getBytes(StandardCharsets.UTF_8), 2));
+    }
+
+    @Test
+    public void clearEmptiesStore() throws IOException {
+        List<AccountStore.Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(account(i, null));
+        }
+        store.appendAll(accounts);
+        store.clear();
+        assertEquals(0, store.size());
+        store.append(account(0, "fresh"));
+        store.close();
+
+        store = new AccountStore(storeFile);
+        assertEquals(1, store.size());
+        assertEquals("fresh", store.get(0).label);
+    }
+
+    private static AccountStore.Account account(int index, String label) {
+        return new AccountStore.Account(index, address(index), PATH, label);
+    }
+
+    private static String address(int index) {
+        return String.format("%040x", 0xabc000 + index);
+    }
+}
@@ -0,0 +1,111 @@
+package com.hux.testwallet;
+
+import org.junit.Test;
+import org.web3j.utils.Numeric;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AddressSet 的扩容、序号、十六进制与字节两种查找方式，以及低位相同的地址
+ */
+public class AddressSetTest {
+
+    @Test
+    public void addsAndFindsAddresses() {
+        AddressSet set = new AddressSet();
+        assertTrue(set.isEmpty());
+        String address = "00112233445566778899aabbccddeeff00112233";
+        assertEquals(0, set.add("0x" + address.toUpperCase()));
+        assertEquals(0, set.add(address));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(address));
+        assertTrue(set.contains("0X" + address));
+        assertEquals(address, set.get(0));
+
+        byte[] bytes = Numeric.hexStringToByteArray("ffff" + address);
+        assertTrue(set.contains(bytes, 2));
+        assertTrue(set.mightContain(bytes, 2));
+        assertEquals(0, set.indexOf(bytes, 2));
+        assertFalse(set.contains(bytes, 0));
+    }
+
+    @Test
+    public void rejectsMalformedAddresses() {
+        AddressSet set = new AddressSet();
+        assertEquals(-1, set.indexOf("0x1234"));
+        assertEquals(-1, set.indexOf("zz112233445566778899aabbccddeeff00112233"));
+        assertEquals(-1, set.indexOf((CharSequence) null));
+        try {
+            set.add("0x1234");
+            throw new AssertionError("malformed address should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        AddressSet set = new AddressSet(4);
+        Random random = new Random(7);
+        String[] addresses = new String[5_000];
+        for (int i = 0; i < addresses.length; i++) {
+            byte[] bytes = new byte[20];
+            random.nextBytes(bytes);
+            addresses[i] = Numeric.toHexStringNoPrefix(bytes);
+            assertEquals(i, set.add(addresses[i]));
+        }
+        assertEquals(addresses.length, set.size());
+        for (int i = 0; i < addresses.length; i++) {
+            assertEquals(i, set.indexOf(addresses[i]));
+            assertEquals(addresses[i], set.get(i));
+        }
+
+        // 不在集合中的地址全部被排除，布隆过滤器的误判也会被哈希表兜住
+        for (int i = 0; i < 5_000; i++) {
+            byte[] bytes = new byte[20];
+            random.nextBytes(bytes);
+            assertEquals(-1, set.indexOf(bytes, 0));
+        }
+    }
+
+    @Test
+    public void distinguishesAddressesDifferingInOneWord() {
+        // 只在第一、第二个 long 或最后 4 字节中相差的地址，且按递增序号排列
+        AddressSet set = new AddressSet();
+        Set<String> added = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            String low = String.format("%040x", i);
+            String high = String.format("%08x", i) + "00000000000000000000000000000000";
+            String middle = "0000000000000000" + String.format("%08x", i) + "0000000000000000";
+            for (String address : new String[]{low, high, middle}) {
+                if (added.add(address)) {
+                    set.add(address);
+                }
+            }
+        }
+        assertEquals(added.size(), set.size());
+        for (String address : added) {
+            assertTrue(address, set.contains(address));
+            assertEquals(address, set.get(set.indexOf(address)));
+        }
+        assertFalse(set.contains(String.format("%040x", 300)));
+    }
+
+    @Test
+    public void clearEmptiesSet() {
+        AddressSet set = new AddressSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(String.format("%040x", i));
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(String.format("%040x", 1)));
+        assertEquals(0, set.add(String.format("%040x", 99)));
+        assertEquals(String.format("%040x", 99), set.get(0));
+    }
+}
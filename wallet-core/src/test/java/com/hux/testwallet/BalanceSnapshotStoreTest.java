@@ -0,0 +1,127 @@
+package com.hux.testwallet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * BalanceSnapshotStore 的读写往返、空位置、重新打开、写入中断和格式不符时的重建
+ */
+public class BalanceSnapshotStoreTest {
+
+    // 2^256 - 1，占满 32 字节
+    private static final BigInteger MAX_UINT256 = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File storeFile;
+    private BalanceSnapshotStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        storeFile = new File(folder.getRoot(), "balances.bin");
+        store = new BalanceSnapshotStore(storeFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void roundTripsAndReopens() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ZERO, BigInteger.TEN, null, MAX_UINT256), 100);
+        store.save(5, Arrays.asList(BigInteger.valueOf(7)), 101);
+        store.close();
+
+        store = new BalanceSnapshotStore(storeFile);
+        BalanceSnapshotStore.Snapshot[] snapshots = store.load(0, 8);
+        assertEquals(8, snapshots.length);
+        assertEquals(BigInteger.ZERO, snapshots[0].balance);
+        assertEquals(100, snapshots[0].blockNumber);
+        assertEquals(BigInteger.TEN, snapshots[1].balance);
+        // null 余额和从未写过的位置都没有快照
+        assertNull(snapshots[2]);
+        assertEquals(MAX_UINT256, snapshots[3].balance);
+        assertNull(snapshots[4]);
+        assertEquals(BigInteger.valueOf(7), snapshots[5].balance);
+        assertEquals(101, snapshots[5].blockNumber);
+        assertNull(snapshots[6]);
+        assertNull(snapshots[7]);
+    }
+
+    @Test
+    public void loadsPageAtOffset() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ONE, BigInteger.valueOf(2), BigInteger.valueOf(3)), 9);
+        BalanceSnapshotStore.Snapshot[] page = store.load(2, 3);
+        assertEquals(BigInteger.valueOf(3), page[0].balance);
+        assertNull(page[1]);
+        assertNull(page[2]);
+        assertEquals(3, store.load(100, 3).length);
+    }
+
+    @Test
+    public void overwritesInPlace() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ONE, BigInteger.ONE), 1);
+        store.save(1, Arrays.asList(BigInteger.valueOf(5)), 2);
+        BalanceSnapshotStore.Snapshot[] snapshots = store.load(0, 2);
+        assertEquals(BigInteger.ONE, snapshots[0].balance);
+        assertEquals(1, snapshots[0].blockNumber);
+        assertEquals(BigInteger.valueOf(5), snapshots[1].balance);
+        assertEquals(2, snapshots[1].blockNumber);
+    }
+
+    @Test
+    public void ignoresPartialTrailingSlot() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ONE, BigInteger.valueOf(2)), 50);
+        store.close();
+        // 截掉第二个位置的后半部分，模拟写入中断
+        try (RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+            file.setLength(file.length() - BalanceSnapshotStore.SLOT_SIZE / 2);
+        }
+
+        store = new BalanceSnapshotStore(storeFile);
+        BalanceSnapshotStore.Snapshot[] snapshots = store.load(0, 2);
+        assertNotNull(snapshots[0]);
+        assertEquals(BigInteger.ONE, snapshots[0].balance);
+        assertNull(snapshots[1]);
+
+        store.save(1, Arrays.asList(BigInteger.valueOf(3)), 51);
+        assertEquals(BigInteger.valueOf(3), store.load(1, 1)[0].balance);
+    }
+
+    @Test
+    public void rebuildsOnForeignHeader() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ONE), 1);
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(storeFile, "rw")) {
+            file.writeInt(0x12345678);
+        }
+
+        store = new BalanceSnapshotStore(storeFile);
+        assertNull(store.load(0, 1)[0]);
+        store.save(0, Arrays.asList(BigInteger.TEN), 2);
+        assertEquals(BigInteger.TEN, store.load(0, 1)[0].balance);
+    }
+
+    @Test
+    public void clearDropsSnapshots() throws IOException {
+        store.save(0, Arrays.asList(BigInteger.ONE, BigInteger.ONE), 1);
+        store.clear();
+        assertNull(store.load(0, 2)[0]);
+        assertNull(store.load(0, 2)[1]);
+    }
+}
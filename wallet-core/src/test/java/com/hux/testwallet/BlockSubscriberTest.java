@@ -0,0 +1,313 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BlockSubscriber 的订阅、轮询和重连状态机
+ * 同一个 MockWebServer 既模拟 HTTP JSON-RPC 节点，也接受 WebSocket 升级并响应 eth_subscribe
+ */
+public class BlockSubscriberTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final String WATCHED = "00000000000000000000000000000000000000aa";
+    private static final String OTHER = "00000000000000000000000000000000000000bb";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FakeNode node = new FakeNode();
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+    private MockWebServer server;
+    private OkHttpClient httpClient;
+    private BlockSubscriber subscriber;
+
+    private final BlockSubscriber.Listener listener = new BlockSubscriber.Listener() {
+        @Override
+        public void onNewBlock(long blockNumber) {
+            events.add("block:" + blockNumber);
+        }
+
+        @Override
+        public void onActivity(long blockNumber, Set<String> addresses) {
+            events.add("activity:" + blockNumber + ":" + addresses);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(node);
+        server.start();
+        httpClient = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (subscriber != null) {
+            subscriber.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void pollingReportsBlocksAndActivity() throws Exception {
+        node.blockNumber.set(100);
+        subscriber = newSubscriber(null);
+        subscriber.setAddresses(Collections.singletonList(Constants.HEX_PREFIX + WATCHED));
+        subscriber.start(listener);
+
+        assertEquals("block:100", nextEvent());
+        assertEquals("activity:100:[" + WATCHED + "]", nextEvent());
+        assertTrue(node.methods.contains("eth_blockNumber"));
+        // 没有日志订阅时每个区块同时查询 Transfer 日志
+        assertTrue(node.methods.contains("eth_getLogs"));
+    }
+
+    @Test
+    public void failedScanIsRetried() throws Exception {
+        node.blockNumber.set(100);
+        node.failedBlockScans.set(1);
+        subscriber = newSubscriber(null);
+        subscriber.setAddresses(Collections.singletonList(WATCHED));
+        subscriber.start(listener);
+
+        // 扫描失败时只报告新区块，下一次轮询重新扫描同一区块
+        assertEquals("block:100", nextEvent());
+        assertEquals("activity:100:[" + WATCHED + "]", nextEvent());
+        assertTrue(node.blockNumberCalls.get() >= 2);
+    }
+
+    @Test
+    public void streamsNewHeadsAndLogsWithoutPolling() throws Exception {
+        subscriber = newSubscriber(webSocketUrl());
+        subscriber.setAddresses(Collections.singletonList(WATCHED));
+        subscriber.start(listener);
+
+        assertEquals("newHeads", node.subscribed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("logs", node.subscribed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("logs", node.subscribed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        node.pushHead(16);
+        assertEquals("block:16", nextEvent());
+        assertEquals("activity:16:[" + WATCHED + "]", nextEvent());
+
+        node.pushTransferLog(17, OTHER, WATCHED);
+        assertEquals("activity:17:[" + WATCHED + "]", nextEvent());
+
+        assertEquals(0, node.blockNumberCalls.get());
+        // 已订阅日志，区块扫描不再查询 eth_getLogs
+        assertFalse(node.methods.contains("eth_getLogs"));
+    }
+
+    @Test
+    public void fallsBackToPollingAndReconnects() throws Exception {
+        node.blockNumber.set(100);
+        node.failedUpgrades.set(1);
+        subscriber = newSubscriber(webSocketUrl());
+        subscriber.start(listener);
+
+        // 首次连接失败，立即轮询
+        assertEquals("block:100", nextEvent());
+        assertEquals(1, node.blockNumberCalls.get());
+
+        // 约 1 秒后重连成功，订阅 newHeads 后停止轮询
+        assertEquals("newHeads", node.subscribed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        node.pushHead(101);
+        assertEquals("block:101", nextEvent());
+        assertEquals(2, node.upgrades.get());
+
+        // 原本 4 秒后的下一次轮询已取消
+        Thread.sleep(5_000);
+        assertEquals(1, node.blockNumberCalls.get());
+    }
+
+    @Test
+    public void rejectedSubscriptionFallsBackToPolling() throws Exception {
+        node.blockNumber.set(200);
+        node.rejectSubscriptions = true;
+        subscriber = newSubscriber(webSocketUrl());
+        subscriber.start(listener);
+
+        assertEquals("block:200", nextEvent());
+        assertTrue(node.blockNumberCalls.get() >= 1);
+    }
+
+    @Test
+    public void stopCancelsPolling() throws Exception {
+        node.blockNumber.set(300);
+        subscriber = newSubscriber(null);
+        subscriber.start(listener);
+        assertEquals("block:300", nextEvent());
+
+        subscriber.stop();
+        int calls = node.blockNumberCalls.get();
+        node.blockNumber.set(301);
+        Thread.sleep(5_000);
+
+        assertEquals(calls, node.blockNumberCalls.get());
+        assertTrue(events.isEmpty());
+    }
+
+    private BlockSubscriber newSubscriber(String webSocketUrl) {
+        return new BlockSubscriber(httpClient, webSocketUrl,
+                new JsonRpcBatchClient(httpClient, server.url("/").toString()));
+    }
+
+    private String webSocketUrl() {
+        return "ws://" + server.getHostName() + ":" + server.getPort() + "/ws";
+    }
+
+    private String nextEvent() throws InterruptedException {
+        return events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static String quantity(long value) {
+        return Numeric.encodeQuantity(BigInteger.valueOf(value));
+    }
+
+    private static String topic(String address) {
+        return Constants.HEX_PREFIX + "000000000000000000000000" + address;
+    }
+
+    /**
+     * 模拟节点：HTTP 请求按方法返回，WebSocket 请求升级后响应 eth_subscribe
+     */
+    private class FakeNode extends Dispatcher {
+        final AtomicLong blockNumber = new AtomicLong();
+        final AtomicInteger blockNumberCalls = new AtomicInteger();
+        final AtomicInteger upgrades = new AtomicInteger();
+        // 前几次 WebSocket 升级返回 503
+        final AtomicInteger failedUpgrades = new AtomicInteger();
+        // 前几次包含 eth_getBlockByNumber 的批量请求返回 503
+        final AtomicInteger failedBlockScans = new AtomicInteger();
+        final List<String> methods = new CopyOnWriteArrayList<>();
+        final BlockingQueue<String> subscribed = new LinkedBlockingQueue<>();
+        // 订阅类型 → 订阅 id
+        final Map<String, String> subscriptionIds = new ConcurrentHashMap<>();
+        volatile boolean rejectSubscriptions;
+        volatile WebSocket socket;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if ("websocket".equalsIgnoreCase(request.getHeader("Upgrade"))) {
+                if (upgrades.incrementAndGet() <= failedUpgrades.get()) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                return new MockResponse().withWebSocketUpgrade(new NodeSocket());
+            }
+            try {
+                JsonNode batch = objectMapper.readTree(request.getBody().readUtf8());
+                if ("eth_getBlockByNumber".equals(batch.path(0).path("method").asText())
+                        && failedBlockScans.getAndDecrement() > 0) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                StringBuilder body = new StringBuilder("[");
+                for (JsonNode item : batch) {
+                    if (body.length() > 1) {
+                        body.append(',');
+                    }
+                    body.append("{\"jsonrpc\":\"2.0\",\"id\":").append(item.get("id").asInt())
+                            .append(",\"result\":").append(result(item)).append('}');
+                }
+                return new MockResponse().setBody(body.append(']').toString());
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+        }
+
+        private String result(JsonNode item) {
+            String method = item.get("method").asText();
+            methods.add(method);
+            switch (method) {
+                case "eth_blockNumber":
+                    blockNumberCalls.incrementAndGet();
+                    return "\"" + quantity(blockNumber.get()) + "\"";
+                case "eth_getBlockByNumber":
+                    String number = item.get("params").get(0).asText();
+                    return "{\"number\":\"" + number + "\",\"hash\":\"0x01\",\"transactions\":[{\"hash\":\"0x02\","
+                            + "\"from\":\"0x" + WATCHED + "\",\"to\":\"0x" + OTHER + "\",\"value\":\"0x1\","
+                            + "\"input\":\"0x\",\"blockNumber\":\"" + number + "\"}]}";
+                case "eth_getLogs":
+                    return "[]";
+                default:
+                    return "null";
+            }
+        }
+
+        void pushHead(long number) {
+            socket.send("{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\""
+                    + subscriptionIds.get("newHeads") + "\",\"result\":{\"number\":\"" + quantity(number) + "\"}}}");
+        }
+
+        void pushTransferLog(long number, String from, String to) {
+            socket.send("{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\""
+                    + subscriptionIds.get("logs") + "\",\"result\":{\"blockNumber\":\"" + quantity(number)
+                    + "\",\"removed\":false,\"topics\":[\"" + TransferHistoryIndexer.TRANSFER_TOPIC + "\",\""
+                    + topic(from) + "\",\"" + topic(to) + "\"]}}}");
+        }
+
+        private class NodeSocket extends WebSocketListener {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                socket = webSocket;
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                JsonNode message;
+                try {
+                    message = objectMapper.readTree(text);
+                } catch (IOException e) {
+                    return;
+                }
+                if (!"eth_subscribe".equals(message.path("method").asText())) {
+                    return;
+                }
+                int id = message.path("id").asInt();
+                if (rejectSubscriptions) {
+                    webSocket.send("{\"jsonrpc\":\"2.0\",\"id\":" + id
+                            + ",\"error\":{\"code\":-32601,\"message\":\"not supported\"}}");
+                    return;
+                }
+                String type = message.path("params").get(0).asText();
+                String subscriptionId = "0x" + Integer.toHexString(0x100 + id);
+                subscriptionIds.put(type, subscriptionId);
+                webSocket.send("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":\"" + subscriptionId + "\"}");
+                subscribed.add(type);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.hux.testwallet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * DerivationPath 的解析、格式化、工厂方法的范围检查和祖先路径运算
+ */
+public class DerivationPathTest {
+
+    private static final int H = DerivationPath.HARDENED_BIT;
+
+    @Test
+    public void parsesAndFormats() {
+        DerivationPath path = DerivationPath.parse("m/44'/60'/0'/0/5");
+        assertArrayEquals(new int[]{44 | H, 60 | H, H, 0, 5}, path.toArray());
+        assertEquals("m/44'/60'/0'/0/5", path.toString());
+        assertEquals(path, DerivationPath.parse("m/44h/60H/0'/0/5"));
+        assertEquals(path.hashCode(), DerivationPath.parse("M/44h/60h/0h/0/5").hashCode());
+        assertEquals(DerivationPath.MASTER, DerivationPath.parse("m"));
+        assertEquals("m", DerivationPath.MASTER.toString());
+        assertEquals("m/2147483647'", DerivationPath.of(Integer.MAX_VALUE | H).toString());
+    }
+
+    @Test
+    public void factoriesMatchParsedPaths() {
+        assertEquals(DerivationPath.parse("m/44'/60'/0'/0"), DerivationPath.ETH_CHAIN);
+        assertEquals(DerivationPath.parse("m/44'/60'/3'/1/9"),
+                DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 3, 1, 9));
+        assertEquals(DerivationPath.parse("m/44'/60'/7'/0/0"), DerivationPath.ledgerLive(7));
+        assertEquals(DerivationPath.parse("m/44'/60'/0'/0/2"), DerivationPath.of(44 | H, 60 | H, H, 0, 2));
+    }
+
+    @Test
+    public void factoriesRejectNegativeComponents() {
+        assertRejected(new Runnable() {
+            @Override
+            public void run() {
+                DerivationPath.bip44Chain(-1, 0, 0);
+            }
+        });
+        assertRejected(new Runnable() {
+            @Override
+            public void run() {
+                DerivationPath.bip44Chain(DerivationPath.COIN_TYPE_ETH, 0, -1);
+            }
+        });
+        assertRejected(new Runnable() {
+            @Override
+            public void run() {
+                DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 0, Integer.MIN_VALUE);
+            }
+        });
+        assertRejected(new Runnable() {
+            @Override
+            public void run() {
+                DerivationPath.ledgerLive(-2);
+            }
+        });
+    }
+
+    @Test
+    public void parseRejectsInvalidPaths() {
+        for (final String path : new String[]{"m/44'/x/0", "m/-1", "m/44'//0", "m/2147483648", "m/1''"}) {
+            assertRejected(new Runnable() {
+                @Override
+                public void run() {
+                    DerivationPath.parse(path);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void navigatesAncestors() {
+        DerivationPath address = DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 0, 5);
+        assertEquals(DerivationPath.ETH_CHAIN, address.parent());
+        assertEquals(address, DerivationPath.ETH_CHAIN.child(5));
+        assertEquals(DerivationPath.parse("m/44'/60'"), address.prefix(2));
+        assertSame(address, address.prefix(address.size()));
+        assertSame(DerivationPath.MASTER, DerivationPath.MASTER.parent());
+        assertTrue(address.startsWith(DerivationPath.ETH_CHAIN));
+        assertTrue(address.startsWith(DerivationPath.MASTER));
+        assertFalse(DerivationPath.ETH_CHAIN.startsWith(address));
+        assertFalse(address.startsWith(DerivationPath.parse("m/44'/60'/1'")));
+        assertTrue(DerivationPath.isHardened(address.get(2)));
+        assertFalse(DerivationPath.isHardened(address.get(4)));
+    }
+
+    @Test
+    public void toArrayReturnsCopy() {
+        DerivationPath path = DerivationPath.ETH_CHAIN;
+        int[] elements = path.toArray();
+        elements[0] = 0;
+        assertEquals(44 | H, path.get(0));
+    }
+
+    private static void assertRejected(Runnable runnable) {
+        try {
+            runnable.run();
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
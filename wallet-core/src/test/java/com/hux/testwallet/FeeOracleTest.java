@@ -0,0 +1,166 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * FeeOracle 的手续费建议、chainId 随手续费历史一起查询，以及 gasLimit 估算缓存
+ */
+public class FeeOracleTest {
+
+    private static final String FROM = "0x00000000000000000000000000000000000000aa";
+    private static final String TO = "0x00000000000000000000000000000000000000bb";
+
+    // 3 个区块，每块 10/50/90 分位小费；baseFeePerGas 多一项为下一区块的 baseFee
+    private static final String FEE_HISTORY = "{\"oldestBlock\":\"0x64\","
+            + "\"baseFeePerGas\":[\"0x50\",\"0x55\",\"0x5a\",\"0x64\"],"
+            + "\"reward\":[[\"0x1\",\"0xa\",\"0x64\"],[\"0x3\",\"0x1e\",\"0x12c\"],[\"0x2\",\"0x14\",\"0xc8\"]]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FakeNode node = new FakeNode();
+
+    private MockWebServer server;
+    private FeeOracle oracle;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(node);
+        server.start();
+        oracle = new FeeOracle(new JsonRpcBatchClient(new OkHttpClient(), server.url("/").toString()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        oracle.stop();
+        server.shutdown();
+    }
+
+    @Test
+    public void suggestsMedianTipOverNextBaseFee() throws IOException {
+        FeeOracle.Fees normal = oracle.getFees(FeeOracle.Speed.NORMAL);
+        assertEquals(BigInteger.valueOf(20), normal.maxPriorityFeePerGas);
+        assertEquals(BigInteger.valueOf(100), normal.baseFee);
+        assertEquals(BigInteger.valueOf(2 * 100 + 20), normal.maxFeePerGas);
+        assertEquals(BigInteger.valueOf(2), oracle.getFees(FeeOracle.Speed.SLOW).maxPriorityFeePerGas);
+        assertEquals(BigInteger.valueOf(200), oracle.getFees(FeeOracle.Speed.FAST).maxPriorityFeePerGas);
+
+        // chainId 与第一次手续费历史在同一批请求中取得，之后都走缓存
+        assertEquals(1, oracle.getChainId());
+        assertEquals(1, node.calls("eth_feeHistory"));
+        assertEquals(1, node.calls("eth_chainId"));
+    }
+
+    @Test
+    public void chainIdFailureIsReported() throws IOException {
+        node.failChainId = true;
+        oracle.getFees(FeeOracle.Speed.NORMAL);
+        try {
+            oracle.getChainId();
+            fail("missing chainId should be reported");
+        } catch (IOException expected) {
+        }
+
+        node.failChainId = false;
+        assertEquals(1, oracle.getChainId());
+    }
+
+    @Test
+    public void plainTransferUsesFixedGasLimit() throws IOException {
+        assertEquals(BigInteger.valueOf(21000), oracle.estimateGas(FROM, TO, BigInteger.ONE, null));
+        assertEquals(BigInteger.valueOf(21000), oracle.estimateGas(FROM, TO, BigInteger.TEN, "0x"));
+        assertEquals(1, node.calls("eth_getCode"));
+        assertEquals(0, node.calls("eth_estimateGas"));
+    }
+
+    @Test
+    public void contractCallEstimateIsCachedByShape() throws IOException {
+        node.contract = true;
+        String transfer = "0xa9059cbb" + String.format("%0128x", 1);
+        // 估算值加 20% 余量
+        assertEquals(BigInteger.valueOf(60000), oracle.estimateGas(FROM, TO, BigInteger.ZERO, transfer));
+        String otherAmount = "0xa9059cbb" + String.format("%0128x", 2);
+        assertEquals(BigInteger.valueOf(60000), oracle.estimateGas(FROM, TO, BigInteger.ZERO, otherAmount));
+        assertEquals(1, node.calls("eth_estimateGas"));
+
+        oracle.estimateGas(FROM, TO, BigInteger.ONE, transfer);
+        assertEquals(2, node.calls("eth_estimateGas"));
+    }
+
+    /**
+     * 模拟节点：按方法返回固定结果并计数
+     */
+    private class FakeNode extends Dispatcher {
+        final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        volatile boolean failChainId;
+        volatile boolean contract;
+
+        int calls(String method) {
+            AtomicInteger count = calls.get(method);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            try {
+                JsonNode batch = objectMapper.readTree(request.getBody().readUtf8());
+                StringBuilder body = new StringBuilder("[");
+                for (JsonNode item : batch) {
+                    if (body.length() > 1) {
+                        body.append(',');
+                    }
+                    String method = item.get("method").asText();
+                    AtomicInteger count = calls.get(method);
+                    if (count == null) {
+                        calls.putIfAbsent(method, new AtomicInteger());
+                        count = calls.get(method);
+                    }
+                    count.incrementAndGet();
+                    body.append("{\"jsonrpc\":\"2.0\",\"id\":").append(item.get("id").asInt());
+                    if (failChainId && "eth_chainId".equals(method)) {
+                        body.append(",\"error\":{\"code\":-32000,\"message\":\"unavailable\"}}");
+                    } else {
+                        body.append(",\"result\":").append(result(method)).append('}');
+                    }
+                }
+                return new MockResponse().setBody(body.append(']').toString());
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+        }
+
+        private String result(String method) {
+            switch (method) {
+                case "eth_feeHistory":
+                    return FEE_HISTORY;
+                case "eth_chainId":
+                    return "\"0x1\"";
+                case "eth_getCode":
+                    return contract ? "\"0x6080\"" : "\"0x\"";
+                case "eth_estimateGas":
+                    return "\"0xc350\"";
+                default:
+                    return "null";
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hux.testwallet;
+
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.crypto.MnemonicCode;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * HD 派生：BIP44 测试向量、节点树缓存与逐层派生一致、批量与单个一致、xpub 只读派生与私钥派生一致
+ */
+public class HDDerivationContextTest {
+
+    // "abandon" × 11 + "about"，空密码
+    private static final List<String> MNEMONIC;
+
+    static {
+        List<String> words = new ArrayList<>(Collections.nCopies(11, "abandon"));
+        words.add("about");
+        MNEMONIC = Collections.unmodifiableList(words);
+    }
+
+    // m/44'/60'/0'/0/0 和 m/44'/60'/0'/0/1
+    private static final String ADDRESS_0 = "9858effd232b4033e47d90003d41ec34ecaeda94";
+    private static final String ADDRESS_1 = "6fac4d18c912343bf86fa7049364dd4e424ab9c0";
+
+    private DeterministicKey masterKey;
+    private HDDerivationContext context;
+
+    @Before
+    public void setUp() {
+        byte[] seed = MnemonicCode.toSeed(MNEMONIC, "");
+        masterKey = HDKeyDerivation.createMasterPrivateKey(seed);
+        context = new HDDerivationContext(seed, masterKey);
+    }
+
+    @Test
+    public void derivesBip44Vectors() {
+        assertEquals(ADDRESS_0, context.deriveAddress(0));
+        assertEquals(ADDRESS_1, context.deriveAddress(1));
+        assertEquals(ADDRESS_0, Keys.getAddress(context.deriveKeyPair(0)));
+        assertEquals(ADDRESS_0, context.deriveAddress(DerivationPath.parse("m/44'/60'/0'/0/0")));
+    }
+
+    @Test
+    public void cachedPathMatchesUncachedDerivation() {
+        DerivationPath[] paths = {
+                DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 0, 7),
+                DerivationPath.bip44(DerivationPath.COIN_TYPE_ETH, 0, 1, 3),
+                DerivationPath.ledgerLive(2),
+                DerivationPath.parse("m/44'/60'/0'/0/0/9"),
+        };
+        // 两轮：第一轮填充节点树，第二轮命中缓存
+        for (int round = 0; round < 2; round++) {
+            for (DerivationPath path : paths) {
+                assertEquals(path.toString(), uncachedAddress(path), context.deriveAddress(path));
+                assertEquals(path.toString(), uncachedKey(path).getPrivKey(),
+                        context.deriveKeyPair(path).getPrivateKey());
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesSingleDerivation() {
+        List<String> addresses = context.deriveAddresses(0, 40);
+        List<ECKeyPair> keyPairs = context.deriveKeyPairs(0, 40);
+        assertEquals(40, addresses.size());
+        assertEquals(40, keyPairs.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(context.deriveAddress(i), addresses.get(i));
+            assertEquals(addresses.get(i), Keys.getAddress(keyPairs.get(i)));
+        }
+
+        DerivationPath change = DerivationPath.bip44Chain(DerivationPath.COIN_TYPE_ETH, 0, 1);
+        List<String> changeAddresses = context.deriveAddresses(change, 5, 10);
+        for (int i = 0; i < changeAddresses.size(); i++) {
+            assertEquals(uncachedAddress(change.child(5 + i)), changeAddresses.get(i));
+        }
+    }
+
+    @Test
+    public void xpubMatchesPrivateDerivation() {
+        WatchOnlyAddressDeriver deriver = WatchOnlyAddressDeriver.fromXpub(context.serializeChainXpub());
+        assertEquals(ADDRESS_0, deriver.deriveAddress(0));
+        assertEquals(context.deriveAddresses(0, 25), deriver.deriveAddresses(0, 25));
+        for (int index : new int[]{0, 1, 19, 1000}) {
+            assertTrue(Arrays.equals(context.derivePublicKey(index), deriver.derivePublicKey(index)));
+            assertTrue(deriver.verifyAddress(context.deriveAddress(index), index));
+        }
+        assertFalse(deriver.verifyAddress(ADDRESS_1, 0));
+    }
+
+    @Test
+    public void xpubRejectsHardenedIndex() {
+        WatchOnlyAddressDeriver deriver = WatchOnlyAddressDeriver.fromXpub(context.serializeChainXpub());
+        try {
+            deriver.deriveAddress(-1);
+            fail("hardened index should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            context.deriveAddress(-1);
+            fail("negative index should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private DeterministicKey uncachedKey(DerivationPath path) {
+        DeterministicKey key = masterKey;
+        for (int element : path.toArray()) {
+            key = HDKeyDerivation.deriveChildKey(key, new ChildNumber(element));
+        }
+        return key;
+    }
+
+    private String uncachedAddress(DerivationPath path) {
+        return Keys.getAddress(ECKeyPair.create(uncachedKey(path).getPrivKey()));
+    }
+}
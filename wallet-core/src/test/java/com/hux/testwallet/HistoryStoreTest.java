@@ -0,0 +1,181 @@
+package com.hux.testwallet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HistoryStore 的提交、按地址倒序读取、重新打开和未提交记录的丢弃
+ */
+public class HistoryStoreTest {
+
+    private static final String ALICE = "00000000000000000000000000000000000000aa";
+    private static final String BOB = "00000000000000000000000000000000000000bb";
+    private static final String CAROL = "00000000000000000000000000000000000000cc";
+    private static final String TOKEN = "00000000000000000000000000000000000000dd";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private HistoryStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = new File(folder.getRoot(), "history");
+        store = new HistoryStore(dir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void tracksAddresses() throws IOException {
+        assertTrue(store.track("0x" + ALICE.toUpperCase(), 10));
+        assertFalse(store.track(ALICE, 20));
+        assertTrue(store.isTracked(ALICE));
+        assertFalse(store.isTracked(BOB));
+        assertEquals(10, store.getSyncedBlock(ALICE));
+        assertEquals(-1, store.getSyncedBlock(BOB));
+        assertEquals(Collections.singletonList(ALICE), store.getAddresses());
+    }
+
+    @Test
+    public void commitsAndLoadsNewestFirst() throws IOException {
+        store.track(ALICE, 0);
+        store.track(BOB, 0);
+        store.commit(Arrays.asList(
+                transfer(1, 0, null, ALICE, CAROL, 1),
+                transfer(2, 3, TOKEN, CAROL, ALICE, 2),
+                // 双方都是跟踪地址，只写一条记录
+                transfer(3, -1, null, ALICE, BOB, 3)), Arrays.asList(ALICE, BOB), 3);
+        assertEquals(3, store.size());
+        assertEquals(3, store.getSyncedBlock(ALICE));
+
+        List<HistoryStore.Transfer> alice = store.load(ALICE, 0, 10);
+        assertEquals(3, alice.size());
+        assertEquals(3, alice.get(0).blockNumber);
+        assertEquals(2, alice.get(1).blockNumber);
+        assertEquals(1, alice.get(2).blockNumber);
+
+        HistoryStore.Transfer token = alice.get(1);
+        assertEquals(TOKEN, token.token);
+        assertFalse(token.isEther());
+        assertEquals(3, token.logIndex);
+        assertEquals(CAROL, token.from);
+        assertEquals(ALICE, token.to);
+        assertEquals(BigInteger.valueOf(2), token.value);
+        assertEquals(hash(2), token.transactionHash);
+        assertTrue(alice.get(0).isEther());
+        assertNull(alice.get(0).token);
+
+        List<HistoryStore.Transfer> bob = store.load(BOB, 0, 10);
+        assertEquals(1, bob.size());
+        assertEquals(-1, bob.get(0).logIndex);
+
+        List<HistoryStore.Transfer> page = store.load(ALICE, 1, 1);
+        assertEquals(1, page.size());
+        assertEquals(2, page.get(0).blockNumber);
+        assertTrue(store.load(CAROL, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void skipsTransfersAlreadyIndexedByCounterparty() throws IOException {
+        store.track(ALICE, 0);
+        store.track(BOB, 0);
+        store.commit(Collections.singletonList(transfer(5, 0, null, ALICE, BOB, 1)),
+                Collections.singletonList(ALICE), 10);
+        // BOB 之后扫描同一区块窗口，ALICE 已索引过的转账不再重复写入
+        store.commit(Collections.singletonList(transfer(5, 0, null, ALICE, BOB, 1)),
+                Collections.singletonList(BOB), 10);
+        assertEquals(1, store.size());
+        assertEquals(1, store.load(BOB, 0, 10).size());
+    }
+
+    @Test
+    public void reopensCommittedHistory() throws IOException {
+        store.track(ALICE, 0);
+        store.commit(Arrays.asList(transfer(1, 0, null, ALICE, BOB, 10), transfer(2, 0, null, BOB, ALICE, 20)),
+                Collections.singletonList(ALICE), 2);
+        store.close();
+
+        store = new HistoryStore(dir);
+        assertEquals(2, store.size());
+        assertEquals(2, store.getSyncedBlock(ALICE));
+        List<HistoryStore.Transfer> alice = store.load(ALICE, 0, 10);
+        assertEquals(2, alice.size());
+        assertEquals(BigInteger.valueOf(20), alice.get(0).value);
+        assertEquals(BigInteger.valueOf(10), alice.get(1).value);
+
+        store.commit(Collections.singletonList(transfer(3, 0, null, ALICE, CAROL, 30)),
+                Collections.singletonList(ALICE), 3);
+        assertEquals(3, store.load(ALICE, 0, 10).get(0).blockNumber);
+    }
+
+    @Test
+    public void discardsUncommittedRecordsOnReopen() throws IOException {
+        store.track(ALICE, 0);
+        store.commit(Collections.singletonList(transfer(1, 0, null, ALICE, BOB, 1)),
+                Collections.singletonList(ALICE), 1);
+        store.close();
+        File records = new File(dir, "history.bin");
+        long committedLength = records.length();
+        // 模拟追加记录后、写入 heads 之前进程被杀
+        try (RandomAccessFile file = new RandomAccessFile(records, "rw")) {
+            file.seek(committedLength);
+            file.write(new byte[HistoryStore.RECORD_SIZE + 7]);
+        }
+
+        store = new HistoryStore(dir);
+        assertEquals(committedLength, records.length());
+        assertEquals(1, store.size());
+        assertEquals(1, store.getSyncedBlock(ALICE));
+
+        store.commit(Collections.singletonList(transfer(2, 0, null, BOB, ALICE, 2)),
+                Collections.singletonList(ALICE), 2);
+        List<HistoryStore.Transfer> alice = store.load(ALICE, 0, 10);
+        assertEquals(2, alice.size());
+        assertEquals(2, alice.get(0).blockNumber);
+        assertEquals(1, alice.get(1).blockNumber);
+    }
+
+    @Test
+    public void clearDropsHistory() throws IOException {
+        store.track(ALICE, 0);
+        store.commit(Collections.singletonList(transfer(1, 0, null, ALICE, BOB, 1)),
+                Collections.singletonList(ALICE), 1);
+        store.clear();
+        store.close();
+
+        store = new HistoryStore(dir);
+        assertEquals(0, store.size());
+        assertFalse(store.isTracked(ALICE));
+        assertTrue(store.load(ALICE, 0, 10).isEmpty());
+    }
+
+    private static HistoryStore.Transfer transfer(long block, int logIndex, String token,
+                                                  String from, String to, long value) {
+        return new HistoryStore.Transfer(block, logIndex, hash(block), token, from, to, BigInteger.valueOf(value));
+    }
+
+    private static String hash(long block) {
+        return String.format("0x%064x", block);
+    }
+}
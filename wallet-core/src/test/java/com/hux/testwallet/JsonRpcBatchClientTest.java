@@ -0,0 +1,178 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * JsonRpcBatchClient 对 MockWebServer 的批量请求和流式解析
+ */
+public class JsonRpcBatchClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockWebServer server;
+    private JsonRpcBatchClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new JsonRpcBatchClient(new OkHttpClient(), server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resultsAreMatchedById() throws Exception {
+        // 乱序返回，且第一条的 result 在 id 之前
+        server.enqueue(json("[{\"result\":\"0x2\",\"jsonrpc\":\"2.0\",\"id\":1},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":0,\"result\":\"0x1\"}]"));
+
+        String[] results = client.sendForStrings(Arrays.asList(
+                new JsonRpcBatchClient.Request("eth_blockNumber"),
+                new JsonRpcBatchClient.Request("eth_chainId")));
+
+        assertArrayEquals(new String[]{"0x1", "0x2"}, results);
+        JsonNode body = objectMapper.readTree(server.takeRequest().getBody().readUtf8());
+        assertEquals(2, body.size());
+        assertEquals("eth_blockNumber", body.get(0).get("method").asText());
+        assertEquals(1, body.get(1).get("id").asInt());
+    }
+
+    @Test
+    public void errorsAreReportedPerRequest() throws Exception {
+        server.enqueue(json("[{\"jsonrpc\":\"2.0\",\"id\":0,\"error\":{\"code\":-32000,\"message\":\"boom\"}},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x5\"}]"));
+
+        final List<String> events = new ArrayList<>();
+        client.send(Arrays.asList(
+                new JsonRpcBatchClient.Request("eth_call"),
+                new JsonRpcBatchClient.Request("eth_blockNumber")), new JsonRpcBatchClient.ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                events.add(index + "=" + parser.getText());
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                events.add(index + ":" + code + " " + message);
+            }
+        });
+
+        assertEquals(Arrays.asList("0:-32000 boom", "1=0x5"), events);
+    }
+
+    @Test
+    public void missingResultIsNull() throws Exception {
+        server.enqueue(json("[{\"jsonrpc\":\"2.0\",\"id\":0,\"error\":{\"code\":-32601,\"message\":\"no\"}}]"));
+
+        String[] results = client.sendForStrings(Arrays.asList(new JsonRpcBatchClient.Request("eth_foo")));
+
+        assertNull(results[0]);
+    }
+
+    @Test
+    public void nonBatchResponseFails() {
+        server.enqueue(json("{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32600,\"message\":\"batch\"}}"));
+        try {
+            client.sendForStrings(Arrays.asList(new JsonRpcBatchClient.Request("eth_blockNumber")));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // 节点不支持批量
+        }
+    }
+
+    @Test
+    public void httpErrorFails() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        try {
+            client.sendForStrings(Arrays.asList(new JsonRpcBatchClient.Request("eth_blockNumber")));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // HTTP 503
+        }
+    }
+
+    @Test
+    public void chunkedRequestsKeepGlobalIndices() throws Exception {
+        server.setDispatcher(new EchoIdDispatcher());
+        int count = 250;
+        List<JsonRpcBatchClient.Request> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new JsonRpcBatchClient.Request("eth_blockNumber"));
+        }
+        final String[] results = new String[count];
+
+        client.sendChunked(requests, 100, new JsonRpcBatchClient.ResultHandler() {
+            @Override
+            public void onResult(int index, JsonParser parser) throws IOException {
+                synchronized (results) {
+                    results[index] = parser.getText();
+                }
+            }
+
+            @Override
+            public void onError(int index, int code, String message) {
+                fail(message);
+            }
+        });
+
+        assertEquals(3, server.getRequestCount());
+        for (int i = 0; i < count; i++) {
+            // 每个分片内 id 从 0 开始，回调下标为全局下标
+            assertEquals("0x" + Integer.toHexString(i % 100), results[i]);
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    /**
+     * 把每条请求的 id 作为结果返回
+     */
+    private class EchoIdDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            try {
+                JsonNode batch = objectMapper.readTree(request.getBody().readUtf8());
+                StringBuilder body = new StringBuilder("[");
+                for (JsonNode item : batch) {
+                    int id = item.get("id").asInt();
+                    if (body.length() > 1) {
+                        body.append(',');
+                    }
+                    body.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id)
+                            .append(",\"result\":\"0x").append(Integer.toHexString(id)).append("\"}");
+                }
+                return json(body.append(']').toString());
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.hux.testwallet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.web3j.crypto.WalletFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * KeystoreRepository 的索引维护：保存、删除、目录外部变化（新增、删除、原地改写）和重新打开
+ */
+public class KeystoreRepositoryTest {
+
+    private static final String ALICE = "00000000000000000000000000000000000000aa";
+    private static final String BOB = "00000000000000000000000000000000000000bb";
+    private static final String CAROL = "00000000000000000000000000000000000000cc";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File keystoreDir;
+    private File indexPath;
+    private KeystoreRepository repository;
+
+    @Before
+    public void setUp() throws IOException {
+        keystoreDir = folder.newFolder("keystore");
+        indexPath = new File(folder.getRoot(), "keystore.idx");
+        repository = new KeystoreRepository(keystoreDir, indexPath);
+    }
+
+    @Test
+    public void savesFindsAndDeletes() throws IOException {
+        assertTrue(repository.isEmpty());
+        assertNull(repository.loadFirst());
+        File alice = repository.save("alice.json", walletFile(ALICE));
+        repository.save("UTC--2020-01-01T00-00-00.0Z--" + BOB + ".json", walletFile(BOB));
+
+        assertEquals(2, repository.size());
+        assertTrue(repository.contains("0x" + ALICE.toUpperCase()));
+        assertEquals(alice, repository.find(ALICE));
+        assertEquals(ALICE, repository.load(ALICE).getAddress());
+        assertEquals(ALICE, repository.loadFirst().getAddress());
+        assertNull(repository.find(CAROL));
+
+        assertTrue(repository.delete(ALICE));
+        assertFalse(alice.exists());
+        assertFalse(repository.contains(ALICE));
+        assertFalse(repository.delete(ALICE));
+        assertEquals(Arrays.asList(BOB), repository.addresses());
+    }
+
+    @Test
+    public void picksUpExternalChanges() throws IOException {
+        repository.save("alice.json", walletFile(ALICE));
+        File bob = write("bob.json", "{\"version\":3,\"address\":\"0x" + BOB + "\"}");
+        write("notes.txt", "not a keystore");
+
+        assertEquals(2, repository.size());
+        assertTrue(repository.contains(BOB));
+
+        assertTrue(bob.delete());
+        assertFalse(repository.contains(BOB));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void detectsInPlaceRewrite() throws IOException {
+        File alice = repository.save("wallet.json", walletFile(ALICE));
+        long lastModified = alice.lastModified();
+        // 同名文件被替换成另一个地址的 KeyStore，文件大小相同
+        write("wallet.json", new String(Files.readAllBytes(alice.toPath()), StandardCharsets.UTF_8)
+                .replace(ALICE, CAROL));
+        assertTrue(alice.setLastModified(lastModified + 2_000));
+
+        assertFalse(repository.contains(ALICE));
+        assertTrue(repository.contains(CAROL));
+        assertEquals(alice, repository.find(CAROL));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void reopensPersistedIndex() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            repository.save("wallet-" + i + ".json", walletFile(String.format("%040x", i + 1)));
+        }
+        repository.delete(String.format("%040x", 5));
+
+        KeystoreRepository reopened = new KeystoreRepository(keystoreDir, indexPath);
+        assertEquals(39, reopened.size());
+        assertEquals(new HashSet<>(repository.addresses()), new HashSet<>(reopened.addresses()));
+        assertEquals(new File(keystoreDir, "wallet-9.json"), reopened.find(String.format("%040x", 10)));
+        assertFalse(reopened.contains(String.format("%040x", 5)));
+    }
+
+    private static WalletFile walletFile(String address) {
+        WalletFile walletFile = new WalletFile();
+        walletFile.setAddress(address);
+        walletFile.setVersion(3);
+        return walletFile;
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(keystoreDir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
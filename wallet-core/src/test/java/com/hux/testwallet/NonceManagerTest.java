@@ -0,0 +1,68 @@
+package com.hux.testwallet;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * NonceManager 的同步、预留、归还和重置
+ */
+public class NonceManagerTest {
+
+    private static final String ADDRESS = "00000000000000000000000000000000000000aa";
+
+    private final NonceManager nonces = new NonceManager();
+
+    @Test
+    public void reserveRequiresSync() {
+        assertFalse(nonces.isTracked(ADDRESS));
+        try {
+            nonces.next(ADDRESS);
+            fail("unsynced address should be rejected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void syncKeepsLargerNonce() {
+        nonces.sync("0x" + ADDRESS.toUpperCase(), BigInteger.valueOf(5));
+        assertTrue(nonces.isTracked(ADDRESS));
+        assertEquals(BigInteger.valueOf(5), nonces.next(ADDRESS));
+        assertEquals(BigInteger.valueOf(6), nonces.next(ADDRESS));
+        // 链上还没看到本地已发出的交易，不回退
+        nonces.sync(ADDRESS, BigInteger.valueOf(3));
+        assertEquals(BigInteger.valueOf(7), nonces.next(ADDRESS));
+        nonces.sync(ADDRESS, BigInteger.valueOf(20));
+        assertEquals(BigInteger.valueOf(20), nonces.next(ADDRESS));
+    }
+
+    @Test
+    public void releaseRollsBackOnlyLatestReservation() {
+        nonces.sync(ADDRESS, BigInteger.TEN);
+        BigInteger first = nonces.reserve(ADDRESS, 3);
+        assertEquals(BigInteger.TEN, first);
+        assertTrue(nonces.release(ADDRESS, first, 3));
+        assertEquals(BigInteger.TEN, nonces.next(ADDRESS));
+
+        BigInteger batch = nonces.reserve(ADDRESS, 2);
+        nonces.next(ADDRESS);
+        // 之后已有新的预留，归还会造成 nonce 重复，保持不变
+        assertFalse(nonces.release(ADDRESS, batch, 2));
+        assertEquals(BigInteger.valueOf(14), nonces.next(ADDRESS));
+    }
+
+    @Test
+    public void resetForgetsAddress() {
+        nonces.sync(ADDRESS, BigInteger.ONE);
+        nonces.reset(ADDRESS);
+        assertFalse(nonces.isTracked(ADDRESS));
+        assertFalse(nonces.release(ADDRESS, BigInteger.ONE, 1));
+        nonces.sync(ADDRESS, BigInteger.ZERO);
+        assertEquals(BigInteger.ZERO, nonces.next(ADDRESS));
+    }
+}
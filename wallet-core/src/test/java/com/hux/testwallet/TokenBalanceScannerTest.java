@@ -0,0 +1,247 @@
+package com.hux.testwallet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * TokenBalanceScanner 的 aggregate3 编码和返回值解码
+ * MockWebServer 模拟 Multicall3：解码请求中的每个 balanceOf 调用，按 (token, holder) 计算余额后 ABI 编码返回
+ */
+public class TokenBalanceScannerTest {
+
+    private static final String MULTICALL = "0xca11bde05977b3631167028862be2a173976ca11";
+    private static final int WORD = 32;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 返回失败的 holder（小写、不带0x）
+    private final Set<String> failingHolders = new HashSet<>();
+    private final List<Integer> callsPerMulticall = Collections.synchronizedList(new ArrayList<Integer>());
+    // 返回的结果数量与调用数量之差
+    private int resultCountDelta;
+    // 从返回值末尾截掉的字节数
+    private int truncatedBytes;
+
+    private MockWebServer server;
+    private TokenBalanceScanner scanner;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new MulticallDispatcher());
+        server.start();
+        scanner = new TokenBalanceScanner(new JsonRpcBatchClient(new OkHttpClient(), server.url("/").toString()),
+                MULTICALL);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void decodesEveryTokenHolderPair() throws Exception {
+        List<String> tokens = addresses(0x1000, 2);
+        List<String> holders = addresses(1, 3);
+
+        TokenBalanceScanner.TokenBalances balances = scanner.getBalances(tokens, holders);
+
+        assertEquals(2, balances.getTokenCount());
+        assertEquals(3, balances.getHolderCount());
+        for (int t = 0; t < tokens.size(); t++) {
+            for (int h = 0; h < holders.size(); h++) {
+                assertTrue(balances.isSuccess(t, h));
+                assertEquals(balanceOf(tokens.get(t), holders.get(h)), balances.getBalance(t, h));
+                assertFalse(balances.isZero(t, h));
+            }
+        }
+        assertEquals(Collections.singletonList(6), callsPerMulticall);
+    }
+
+    @Test
+    public void failedCallsAreNull() throws Exception {
+        List<String> tokens = addresses(0x1000, 1);
+        List<String> holders = addresses(1, 3);
+        failingHolders.add(Numeric.cleanHexPrefix(holders.get(1)));
+
+        TokenBalanceScanner.TokenBalances balances = scanner.getBalances(tokens, holders);
+
+        assertTrue(balances.isSuccess(0, 0));
+        assertFalse(balances.isSuccess(0, 1));
+        assertNull(balances.getBalance(0, 1));
+        assertEquals(balanceOf(tokens.get(0), holders.get(2)), balances.getBalance(0, 2));
+    }
+
+    @Test
+    public void largeScansSplitIntoBatchedCalls() throws Exception {
+        List<String> tokens = addresses(0x1000, 2);
+        List<String> holders = addresses(1, 600);
+
+        TokenBalanceScanner.TokenBalances balances = scanner.getBalances(tokens, holders);
+
+        // 1200 个调用分成 500 + 500 + 200 三个 eth_call，合并在一次 HTTP 请求中
+        assertEquals(1, server.getRequestCount());
+        assertEquals(Arrays.asList(500, 500, 200), callsPerMulticall);
+        assertEquals(balanceOf(tokens.get(0), holders.get(0)), balances.getBalance(0, 0));
+        assertEquals(balanceOf(tokens.get(0), holders.get(499)), balances.getBalance(0, 499));
+        assertEquals(balanceOf(tokens.get(1), holders.get(599)), balances.getBalance(1, 599));
+    }
+
+    @Test
+    public void emptyInputSkipsRequest() throws Exception {
+        TokenBalanceScanner.TokenBalances balances = scanner.getBalances(
+                Collections.<String>emptyList(), addresses(1, 3));
+
+        assertEquals(0, balances.getTokenCount());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void malformedResponseFails() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("[{\"jsonrpc\":\"2.0\",\"id\":0,\"result\":\"0x1234\"}]");
+            }
+        });
+        try {
+            scanner.getBalances(addresses(0x1000, 1), addresses(1, 1));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // 返回值不足两个字
+        }
+    }
+
+    @Test
+    public void resultCountMismatchFails() throws Exception {
+        resultCountDelta = 1;
+        try {
+            scanner.getBalances(addresses(0x1000, 1), addresses(1, 2));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // 结果多于调用，不能写入下一批的位置
+        }
+    }
+
+    @Test
+    public void truncatedReturnDataFails() throws Exception {
+        truncatedBytes = 16;
+        try {
+            scanner.getBalances(addresses(0x1000, 1), addresses(1, 2));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // 最后一个 returnData 越界
+        }
+    }
+
+    private static List<String> addresses(int first, int count) {
+        List<String> addresses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            addresses.add(Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(first + i), 40));
+        }
+        return addresses;
+    }
+
+    /**
+     * 模拟的余额：token 编号 × 10^18 + holder 编号
+     */
+    private static BigInteger balanceOf(String token, String holder) {
+        return Numeric.toBigInt(token).multiply(BigInteger.TEN.pow(18)).add(Numeric.toBigInt(holder));
+    }
+
+    private class MulticallDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            try {
+                JsonNode batch = objectMapper.readTree(request.getBody().readUtf8());
+                StringBuilder body = new StringBuilder("[");
+                for (JsonNode item : batch) {
+                    JsonNode call = item.get("params").get(0);
+                    assertEquals("eth_call", item.get("method").asText());
+                    assertEquals(MULTICALL, call.get("to").asText());
+                    byte[] result = aggregate3(Numeric.hexStringToByteArray(call.get("data").asText()));
+                    if (body.length() > 1) {
+                        body.append(',');
+                    }
+                    body.append("{\"jsonrpc\":\"2.0\",\"id\":").append(item.get("id").asInt())
+                            .append(",\"result\":\"").append(Numeric.toHexString(result)).append("\"}");
+                }
+                return new MockResponse().setBody(body.append(']').toString());
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(400);
+            }
+        }
+
+        /**
+         * 解码 aggregate3((address,bool,bytes)[])，返回 (bool,bytes)[] 的 ABI 编码
+         */
+        private byte[] aggregate3(byte[] data) {
+            assertEquals("0x82ad56cb", Numeric.toHexString(Arrays.copyOfRange(data, 0, 4)));
+            int arrayOffset = 4 + readInt(data, 4);
+            int n = readInt(data, arrayOffset);
+            callsPerMulticall.add(n);
+            int base = arrayOffset + WORD;
+
+            int tupleSize = WORD * 4;
+            byte[] out = new byte[WORD * 2 + n * WORD + n * tupleSize];
+            writeInt(out, 0, WORD);
+            writeInt(out, WORD, n + resultCountDelta);
+            int outBase = WORD * 2;
+            for (int i = 0; i < n; i++) {
+                int tuple = base + readInt(data, base + i * WORD);
+                String target = Numeric.toHexString(Arrays.copyOfRange(data, tuple + 12, tuple + WORD));
+                assertEquals(1, readInt(data, tuple + WORD));
+                int callData = tuple + readInt(data, tuple + WORD * 2);
+                assertEquals(4 + WORD, readInt(data, callData));
+                assertEquals("0x70a08231", Numeric.toHexString(
+                        Arrays.copyOfRange(data, callData + WORD, callData + WORD + 4)));
+                int holderWord = callData + WORD + 4;
+                String holder = Numeric.toHexString(Arrays.copyOfRange(data, holderWord + 12, holderWord + WORD));
+
+                writeInt(out, outBase + i * WORD, n * WORD + i * tupleSize);
+                int outTuple = outBase + n * WORD + i * tupleSize;
+                boolean success = !failingHolders.contains(Numeric.cleanHexPrefix(holder));
+                writeInt(out, outTuple, success ? 1 : 0);
+                writeInt(out, outTuple + WORD, WORD * 2);
+                writeInt(out, outTuple + WORD * 2, WORD);
+                byte[] balance = Numeric.toBytesPadded(balanceOf(target, holder), WORD);
+                System.arraycopy(balance, 0, out, outTuple + WORD * 3, WORD);
+            }
+            return Arrays.copyOf(out, out.length - truncatedBytes);
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return new BigInteger(1, Arrays.copyOfRange(data, offset, offset + WORD)).intValueExact();
+    }
+
+    private static void writeInt(byte[] out, int offset, int value) {
+        byte[] word = Numeric.toBytesPadded(BigInteger.valueOf(value), WORD);
+        System.arraycopy(word, 0, out, offset, WORD);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hux.testwallet;
+
+import org.junit.After;
+import org.junit.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * UnlockSession 的有效期、空闲超时和手动锁定
+ */
+public class UnlockSessionTest {
+
+    private static final ECKeyPair KEY_PAIR = ECKeyPair.create(BigInteger.valueOf(0x1234567890L));
+    private static final String ADDRESS = Keys.getAddress(KEY_PAIR);
+
+    private UnlockSession session;
+
+    @After
+    public void tearDown() {
+        if (session != null) {
+            session.clear();
+        }
+    }
+
+    @Test
+    public void returnsUnlockedCredentials() {
+        session = new UnlockSession(0, 0);
+        assertNull(session.get(ADDRESS));
+        session.put("0x" + ADDRESS.toUpperCase(), KEY_PAIR);
+        Credentials credentials = session.get(ADDRESS);
+        assertNotNull(credentials);
+        assertEquals(KEY_PAIR.getPrivateKey(), credentials.getEcKeyPair().getPrivateKey());
+        assertEquals("0x" + ADDRESS, credentials.getAddress());
+    }
+
+    @Test
+    public void expiresAfterTtl() throws InterruptedException {
+        session = new UnlockSession(300, 0);
+        session.put(ADDRESS, KEY_PAIR);
+        assertNotNull(session.get(ADDRESS));
+        Thread.sleep(600);
+        assertNull(session.get(ADDRESS));
+    }
+
+    @Test
+    public void accessExtendsIdleTimeout() throws InterruptedException {
+        session = new UnlockSession(0, 1_000);
+        session.put(ADDRESS, KEY_PAIR);
+        Thread.sleep(600);
+        assertNotNull(session.get(ADDRESS));
+        // 距解锁已超过空闲超时，但距上次访问没有
+        Thread.sleep(600);
+        assertNotNull(session.get(ADDRESS));
+        Thread.sleep(1_500);
+        assertNull(session.get(ADDRESS));
+    }
+
+    @Test
+    public void shorterTimeoutsApplyToUnlockedKeys() throws InterruptedException {
+        session = new UnlockSession(0, 0);
+        session.put(ADDRESS, KEY_PAIR);
+        session.setTimeouts(200, 0);
+        Thread.sleep(500);
+        assertNull(session.get(ADDRESS));
+    }
+
+    @Test
+    public void evictAndClearLock() {
+        session = new UnlockSession(0, 0);
+        ECKeyPair other = ECKeyPair.create(BigInteger.valueOf(42));
+        session.put(ADDRESS, KEY_PAIR);
+        session.put(Keys.getAddress(other), other);
+        session.evict(ADDRESS);
+        assertNull(session.get(ADDRESS));
+        assertNotNull(session.get(Keys.getAddress(other)));
+        session.clear();
+        assertNull(session.get(Keys.getAddress(other)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.hux.testwallet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WalletLog 的级别判断、{} 占位符格式化和 Throwable 重载
+ */
+public class WalletLogTest {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        WalletLog.setLogger(new WalletLogger() {
+            @Override
+            public void log(int level, String tag, String message, Throwable throwable) {
+                entries.add(new Entry(level, message, throwable));
+            }
+        });
+        WalletLog.setMinLevel(WalletLogger.DEBUG);
+    }
+
+    @After
+    public void tearDown() {
+        WalletLog.setLogger(new WalletLog.JulLogger());
+        WalletLog.setMinLevel(WalletLogger.INFO);
+    }
+
+    @Test
+    public void formatsPlaceholdersInOrder() {
+        WalletLog.d("Test", "{} of {} done, {}", 3, 5, "ok");
+
+        assertEquals("3 of 5 done, ok", entries.get(0).message);
+    }
+
+    @Test
+    public void extraPlaceholdersAreKept() {
+        assertEquals("a=1, b={}", WalletLog.format("a={}, b={}", 1));
+    }
+
+    @Test
+    public void throwableBindsToThrowableOverload() {
+        IllegalStateException error = new IllegalStateException("boom");
+
+        WalletLog.d("Test", "debug failed", error);
+        WalletLog.i("Test", "info failed", error);
+
+        assertEquals(2, entries.size());
+        assertEquals(WalletLogger.DEBUG, entries.get(0).level);
+        assertEquals("debug failed", entries.get(0).message);
+        assertSame(error, entries.get(0).throwable);
+        assertEquals(WalletLogger.INFO, entries.get(1).level);
+        assertEquals("info failed", entries.get(1).message);
+        assertSame(error, entries.get(1).throwable);
+    }
+
+    @Test
+    public void errorWithArgumentKeepsThrowable() {
+        IllegalStateException error = new IllegalStateException("boom");
+
+        WalletLog.e("Test", "Derive failed at index: {}", 7, error);
+
+        Entry entry = entries.get(0);
+        assertEquals(WalletLogger.ERROR, entry.level);
+        assertEquals("Derive failed at index: 7", entry.message);
+        assertSame(error, entry.throwable);
+    }
+
+    @Test
+    public void disabledLevelSkipsFormatting() {
+        WalletLog.setMinLevel(WalletLogger.WARN);
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("formatted below min level");
+            }
+        };
+
+        WalletLog.d("Test", "value {}", argument);
+        WalletLog.i("Test", "value {}", argument);
+        WalletLog.w("Test", "warn {}", 1);
+
+        assertEquals(1, entries.size());
+        assertEquals(WalletLogger.WARN, entries.get(0).level);
+        assertTrue(WalletLog.isLoggable(WalletLogger.ERROR));
+    }
+
+    private static class Entry {
+        final int level;
+        final String message;
+        final Throwable throwable;
+
+        Entry(int level, String message, Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+}